@@ -0,0 +1,43 @@
+package io.textor.benchmark;
+
+import io.textor.Row;
+import io.textor.codec.Codec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"5", "20", "60"})
+    public int rowWidth;
+
+    @Param({"8", "256"})
+    public int valueSize;
+
+    @Param({"COLUMNS", "MIXED"})
+    public Fixtures.Mix mix;
+
+    private Row row;
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        row = Fixtures.row(1, rowWidth, valueSize, mix, 42L);
+        encoded = Codec.encode(row);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Codec.encode(row);
+    }
+
+    @Benchmark
+    public Row decode() {
+        return Codec.decode(encoded, 1);
+    }
+}
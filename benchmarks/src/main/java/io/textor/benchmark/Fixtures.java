@@ -0,0 +1,94 @@
+package io.textor.benchmark;
+
+import io.textor.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class Fixtures {
+    private final static ValueType[] types = ValueType.values();
+    private final static ZonedDateTime epoch = ZonedDateTime.of(2022, 11, 9, 8, 19, 36, 500964500, ZoneId.of("Asia/Shanghai"));
+
+    public enum Mix {
+        COLUMNS, ATTRIBUTES, MIXED
+    }
+
+    public static Row row(int index, int width, int valueSize, Mix mix, long seed) {
+        Random random = new Random(seed);
+        List<Cell> columns = new ArrayList<>();
+        List<Cell> attrs = new ArrayList<>();
+        for (int n = 0; n < width; ++n) {
+            ValueType type = types[n % types.length];
+            KeyType keyType = keyType(n, mix);
+            Cell cell = new Cell(index,
+                    new ColumnDescriptor(new KeyDescriptor(keyName(n), keyType), descriptor(type, valueSize)),
+                    value(type, valueSize, random));
+            if (keyType == KeyType.ATTRIBUTE) {
+                attrs.add(cell);
+            }
+            else {
+                columns.add(cell);
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("Row needs at least one column.");
+        }
+        return new Row(columns.toArray(new Cell[0]), attrs.toArray(new Cell[0]));
+    }
+
+    public static ValueDescriptor descriptor(ValueType type, int valueSize) {
+        return switch (type) {
+            case DECIMAL -> new ValueDescriptor(type, decimalWidth(valueSize), decimalPrecision(valueSize), 0);
+            case BINARY -> new ValueDescriptor(type, 0, 0, valueSize);
+            case ASCII, INTEGER, TIMESTAMP -> new ValueDescriptor(type, 0, 0, 0);
+        };
+    }
+
+    public static Object value(ValueType type, int valueSize, Random random) {
+        return switch (type) {
+            case INTEGER -> random.nextLong();
+            case DECIMAL -> Math.abs(random.nextDouble()) * Math.pow(10, decimalWidth(valueSize) - decimalPrecision(valueSize) - 1);
+            case ASCII -> ascii(valueSize, random);
+            case BINARY -> binary(valueSize, random);
+            case TIMESTAMP -> epoch.plusNanos(Math.abs(random.nextLong() % 1_000_000_000_000_000L));
+        };
+    }
+
+    public static String ascii(int size, Random random) {
+        StringBuilder builder = new StringBuilder(size);
+        for (int n = 0; n < size; ++n) {
+            // Printable ASCII, quotes and backslashes included so escaping is exercised.
+            builder.append((char)(' ' + random.nextInt('~' - ' ' + 1)));
+        }
+        return builder.toString();
+    }
+
+    public static byte[] binary(int size, Random random) {
+        byte[] binary = new byte[size];
+        random.nextBytes(binary);
+        return binary;
+    }
+
+    public static int decimalWidth(int valueSize) {
+        return Math.max(2, Math.min(valueSize, 18));
+    }
+
+    public static int decimalPrecision(int valueSize) {
+        return decimalWidth(valueSize) / 2;
+    }
+
+    private static KeyType keyType(int n, Mix mix) {
+        return switch (mix) {
+            case COLUMNS -> KeyType.COLUMN;
+            case ATTRIBUTES -> n == 0 ? KeyType.COLUMN : KeyType.ATTRIBUTE;
+            case MIXED -> n % 2 == 0 ? KeyType.COLUMN : KeyType.ATTRIBUTE;
+        };
+    }
+
+    private static String keyName(int n) {
+        return "_key" + n;
+    }
+}
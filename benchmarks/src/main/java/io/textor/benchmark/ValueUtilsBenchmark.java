@@ -0,0 +1,118 @@
+package io.textor.benchmark;
+
+import io.textor.DecodingState;
+import io.textor.ValueType;
+import io.textor.codec.EpochTimestamp;
+import io.textor.codec.ValueUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValueUtilsBenchmark {
+    @Param({"8", "64", "4096"})
+    public int valueSize;
+
+    private final DecodingState state = new DecodingState(0);
+    private final EpochTimestamp epochTimestamp = new EpochTimestamp();
+
+    private long integer;
+    private double decimal;
+    private int width;
+    private int precision;
+    private String ascii;
+    private byte[] binary;
+    private ZonedDateTime timestamp;
+
+    private String integerStr;
+    private String decimalStr;
+    private String asciiStr;
+    private String binaryStr;
+    private String timestampStr;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+        width = Fixtures.decimalWidth(valueSize);
+        precision = Fixtures.decimalPrecision(valueSize);
+        integer = (Long)Fixtures.value(ValueType.INTEGER, valueSize, random);
+        decimal = (Double)Fixtures.value(ValueType.DECIMAL, valueSize, random);
+        ascii = (String)Fixtures.value(ValueType.ASCII, valueSize, random);
+        binary = (byte[])Fixtures.value(ValueType.BINARY, valueSize, random);
+        timestamp = (ZonedDateTime)Fixtures.value(ValueType.TIMESTAMP, valueSize, random);
+
+        integerStr = ValueUtils.Integer.encode(integer);
+        decimalStr = ValueUtils.Decimal.encode(decimal, width, precision);
+        asciiStr = ValueUtils.ASCII.encode(ascii);
+        binaryStr = ValueUtils.Binary.encode(binary, 0, binary.length);
+        timestampStr = ValueUtils.Timestamp.encode(timestamp);
+    }
+
+    @Benchmark
+    public String encodeInteger() {
+        return ValueUtils.Integer.encode(integer);
+    }
+
+    @Benchmark
+    public Long decodeInteger() {
+        state.setCursor(0);
+        return ValueUtils.Integer.decode(integerStr, state);
+    }
+
+    @Benchmark
+    public String encodeDecimal() {
+        return ValueUtils.Decimal.encode(decimal, width, precision);
+    }
+
+    @Benchmark
+    public Double decodeDecimal() {
+        state.setCursor(0);
+        return ValueUtils.Decimal.decode(decimalStr, width, precision, state);
+    }
+
+    @Benchmark
+    public String encodeAscii() {
+        return ValueUtils.ASCII.encode(ascii);
+    }
+
+    @Benchmark
+    public String decodeAscii() {
+        state.setCursor(0);
+        return ValueUtils.ASCII.decode(asciiStr, state);
+    }
+
+    @Benchmark
+    public String encodeBinary() {
+        return ValueUtils.Binary.encode(binary, 0, binary.length);
+    }
+
+    @Benchmark
+    public byte[] decodeBinary() {
+        state.setCursor(0);
+        return ValueUtils.Binary.decode(binaryStr, binary.length, state);
+    }
+
+    @Benchmark
+    public String encodeTimestamp() {
+        return ValueUtils.Timestamp.encode(timestamp);
+    }
+
+    @Benchmark
+    public ZonedDateTime decodeTimestamp() {
+        state.setCursor(0);
+        return ValueUtils.Timestamp.decode(timestampStr, state);
+    }
+
+    @Benchmark
+    public long decodeEpochTimestamp() {
+        state.setCursor(0);
+        return ValueUtils.Timestamp.decodeEpoch(timestampStr, epochTimestamp, state).getEpochSecond();
+    }
+}
@@ -0,0 +1,79 @@
+package io.textor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Ids for repeated ASCII values of a Textor file. A definition line $id="value" gives an id its value, a line of a
+ * lone '$' drops all ids, and a row may write $id in place of a quoted ASCII value. Every reference to an id decodes
+ * to the one String held for it.
+ */
+public class AsciiDictionary {
+    private final static int maxId = (1 << 20) - 1;
+
+    private String[] values;
+    private final Map<String, Integer> ids;
+    private int size;
+    private int nextId;
+
+    public AsciiDictionary() {
+        values = new String[16];
+        ids = new HashMap<>();
+    }
+
+    public AsciiDictionary(AsciiDictionary other) {
+        values = other.values.clone();
+        ids = new HashMap<>(other.ids);
+        size = other.size;
+        nextId = other.nextId;
+    }
+
+    public String get(int id) {
+        if (id < 0 || id >= values.length || values[id] == null) {
+            throw new IllegalArgumentException("Dictionary id " + id + " is not defined.");
+        }
+        return values[id];
+    }
+
+    public int idOf(String value) {
+        // Returns -1 if value has no id.
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public void define(int id, String value) {
+        if (id < 0 || id > maxId || value == null) {
+            throw new IllegalArgumentException("Illegal dictionary definition (" + id + "," + value + ").");
+        }
+        if (id >= values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, id + 1));
+        }
+        if (values[id] == null) {
+            ++size;
+        }
+        else {
+            ids.remove(values[id], id);
+        }
+        values[id] = value;
+        ids.put(value, id);
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    public int add(String value) {
+        // Gives value the next free id and returns it.
+        define(nextId, value);
+        return nextId - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        ids.clear();
+        size = 0;
+        nextId = 0;
+    }
+}
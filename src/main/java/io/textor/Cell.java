@@ -6,17 +6,61 @@ import java.util.Objects;
 public class Cell {
     private final int index;
     private final ColumnDescriptor descriptor;
+    // INTEGER and DECIMAL values are kept unboxed in bits, the others in value.
     private final Object value;
+    private final long bits;
+    private final boolean isNull;
 
     public Cell(int cellIndex, ColumnDescriptor valueDescriptor, Object nullableValue) {
         Objects.requireNonNull(valueDescriptor);
-        checkTypeValue(valueDescriptor.getValueDescriptor().getType(), nullableValue);
+        ValueType type = valueDescriptor.getValueDescriptor().getType();
+        checkTypeValue(type, nullableValue);
         index = cellIndex;
         descriptor = valueDescriptor;
-        value = nullableValue;
+        isNull = nullableValue == null;
+        if (isNull) {
+            value = null;
+            bits = 0L;
+        }
+        else if (type == ValueType.INTEGER) {
+            value = null;
+            bits = (Long)nullableValue;
+        }
+        else if (type == ValueType.DECIMAL) {
+            value = null;
+            bits = Double.doubleToRawLongBits((Double)nullableValue);
+        }
+        else {
+            value = nullableValue;
+            bits = 0L;
+        }
+    }
+
+    public Cell(int cellIndex, ColumnDescriptor valueDescriptor, long integer) {
+        this(cellIndex, valueDescriptor, ValueType.INTEGER, integer);
+    }
+
+    public Cell(int cellIndex, ColumnDescriptor valueDescriptor, double decimal) {
+        this(cellIndex, valueDescriptor, ValueType.DECIMAL, Double.doubleToRawLongBits(decimal));
+    }
+
+    private Cell(int cellIndex, ColumnDescriptor valueDescriptor, ValueType primitiveType, long primitiveBits) {
+        Objects.requireNonNull(valueDescriptor);
+        ValueType type = valueDescriptor.getValueDescriptor().getType();
+        if (type != primitiveType) {
+            throw new IllegalArgumentException(type + " value is not " + (primitiveType == ValueType.INTEGER ? "long" : "double"));
+        }
+        index = cellIndex;
+        descriptor = valueDescriptor;
+        value = null;
+        bits = primitiveBits;
+        isNull = false;
     }
 
     private void checkTypeValue(ValueType type, Object value) {
+        if (value == null) {
+            return;
+        }
         boolean hit = switch (type) {
             case ASCII -> value instanceof String;
             case BINARY -> value instanceof byte[];
@@ -38,16 +82,38 @@ public class Cell {
         return descriptor;
     }
 
+    public boolean isNull() {
+        return isNull;
+    }
+
     public Object getValue() {
-        return value;
+        if (isNull) {
+            return null;
+        }
+        return switch (descriptor.getValueDescriptor().getType()) {
+            case INTEGER -> getLong();
+            case DECIMAL -> getDouble();
+            case ASCII, BINARY, TIMESTAMP -> value;
+        };
+    }
+
+    public long getLong() {
+        // Like JDBC, a null INTEGER reads as 0 and isNull() tells them apart.
+        checkType(ValueType.INTEGER);
+        return bits;
+    }
+
+    public double getDouble() {
+        checkType(ValueType.DECIMAL);
+        return Double.longBitsToDouble(bits);
     }
 
     public Long getInteger() {
-        return value == null ? null : (Long)value;
+        return isNull ? null : getLong();
     }
 
     public Double getDecimal() {
-        return value == null ? null : (Double)value;
+        return isNull ? null : getDouble();
     }
 
     public String getAsciiString() {
@@ -61,4 +127,10 @@ public class Cell {
     public ZonedDateTime getTimestamp() {
         return value == null ? null : (ZonedDateTime)value;
     }
+
+    private void checkType(ValueType type) {
+        if (descriptor.getValueDescriptor().getType() != type) {
+            throw new IllegalStateException(descriptor.getValueDescriptor().getType() + " cell has no " + type + " value.");
+        }
+    }
 }
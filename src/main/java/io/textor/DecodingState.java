@@ -2,9 +2,16 @@ package io.textor;
 
 public class DecodingState {
     private int cursor;
+    // Resolves $id references of ASCII values, null if the line can't have any.
+    private final AsciiDictionary dictionary;
 
     public DecodingState(int initCursor) {
+        this(initCursor, null);
+    }
+
+    public DecodingState(int initCursor, AsciiDictionary asciiDictionary) {
         cursor = initCursor;
+        dictionary = asciiDictionary;
     }
 
     public void setCursor(int cursor) {
@@ -14,4 +21,8 @@ public class DecodingState {
     public int getCursor() {
         return cursor;
     }
+
+    public AsciiDictionary getDictionary() {
+        return dictionary;
+    }
 }
@@ -1,11 +1,14 @@
 package io.textor;
 
-import java.util.*;
+import java.util.Arrays;
 
 public class Row {
     private final static Cell[] zeros = new Cell[0];
-    private final Map<String, Cell> cols = new HashMap<>();
-    private final Map<String, Cell> attrs = new HashMap<>();
+    // Cells sorted by name with duplicates removed, and cell of a name is at its layout slot.
+    private final Cell[] cols;
+    private final Cell[] attrs;
+    private final RowLayout colLayout;
+    private final RowLayout attrLayout;
     private final int index;
 
     public Row(Cell[] columns, Cell[] attributes) {
@@ -17,13 +20,27 @@ public class Row {
             if (c.getIndex() != index) {
                 throw new IllegalArgumentException("Unmatched index between row and cells.");
             }
-            cols.put(c.getColumnDescriptor().getKeyDescriptor().getName(), c);
         }
-        if (attributes != null) {
-            for (Cell a : attributes) {
-                attrs.put(a.getColumnDescriptor().getKeyDescriptor().getName(), a);
+        cols = sortCells(columns);
+        attrs = attributes == null ? zeros : sortCells(attributes);
+        colLayout = RowLayout.of(cols);
+        attrLayout = RowLayout.of(attrs);
+    }
+
+    public Row(int rowIndex, Cell[] columns, Cell[] attributes) {
+        // Unlike the other constructor, index is given so that columns may be empty.
+        index = rowIndex;
+        for (Cell[] cells : new Cell[][] {columns, attributes}) {
+            for (Cell c : cells == null ? zeros : cells) {
+                if (c.getIndex() != index) {
+                    throw new IllegalArgumentException("Unmatched index between row and cells.");
+                }
             }
         }
+        cols = columns == null ? zeros : sortCells(columns);
+        attrs = attributes == null ? zeros : sortCells(attributes);
+        colLayout = RowLayout.of(cols);
+        attrLayout = RowLayout.of(attrs);
     }
 
     public int getIndex() {
@@ -31,24 +48,68 @@ public class Row {
     }
 
     public Cell getColumn(String columnName) {
-        return cols.get(columnName);
+        int slot = colLayout.slotOf(columnName);
+        return slot == -1 ? null : cols[slot];
+    }
+
+    public Cell getColumn(int slot) {
+        return cols[slot];
+    }
+
+    public int getColumnCount() {
+        return cols.length;
+    }
+
+    public RowLayout getColumnLayout() {
+        return colLayout;
     }
 
     public Cell[] getColumns() {
-        return getSortedCells(cols.values());
+        return Arrays.copyOf(cols, cols.length);
     }
 
     public Cell getAttribute(String attributeName) {
-        return attrs.get(attributeName);
+        int slot = attrLayout.slotOf(attributeName);
+        return slot == -1 ? null : attrs[slot];
+    }
+
+    public Cell getAttribute(int slot) {
+        return attrs[slot];
+    }
+
+    public int getAttributeCount() {
+        return attrs.length;
+    }
+
+    public RowLayout getAttributeLayout() {
+        return attrLayout;
     }
 
     public Cell[] getAttributes() {
-        return getSortedCells(attrs.values());
+        return Arrays.copyOf(attrs, attrs.length);
     }
 
-    private Cell[] getSortedCells(Collection<Cell> cells) {
-        List<Cell> sorted = new LinkedList<>(cells);
-        sorted.sort(Comparator.comparing(cell -> cell.getColumnDescriptor().getKeyDescriptor().getName()));
-        return sorted.toArray(zeros);
+    private static Cell[] sortCells(Cell[] cells) {
+        // Stable insertion sort, cells usually arrive sorted since that is how rows are encoded. Of cells with the
+        // same name the last one is kept.
+        Cell[] sorted = Arrays.copyOf(cells, cells.length);
+        for (int cur = 1; cur < sorted.length; ++cur) {
+            Cell cell = sorted[cur];
+            String name = RowLayout.nameOf(cell);
+            int pos = cur - 1;
+            while (pos >= 0 && RowLayout.nameOf(sorted[pos]).compareTo(name) > 0) {
+                sorted[pos + 1] = sorted[pos];
+                --pos;
+            }
+            sorted[pos + 1] = cell;
+        }
+        int size = 0;
+        for (int cur = 0; cur < sorted.length; ++cur) {
+            if (size > 0 && RowLayout.nameOf(sorted[size - 1]).equals(RowLayout.nameOf(sorted[cur]))) {
+                --size;
+            }
+            sorted[size++] = sorted[cur];
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
     }
 }
@@ -0,0 +1,16 @@
+package io.textor;
+
+public class RowDecodeException extends IllegalArgumentException {
+    private final static long serialVersionUID = 1L;
+
+    private final int index;
+
+    public RowDecodeException(int rowIndex, Throwable cause) {
+        super("Failed decoding row " + rowIndex + ": " + cause.getMessage(), cause);
+        index = rowIndex;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,91 @@
+package io.textor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Sorted cell names of a row and their slots, shared by all rows with the same names.
+ */
+public class RowLayout {
+    private final static RowLayout[] layouts = new RowLayout[1024];
+    private final String[] names;
+    private final Map<String, Integer> slots;
+    private final int hash;
+
+    private RowLayout(String[] sortedNames, int namesHash) {
+        names = sortedNames;
+        hash = namesHash;
+        slots = new HashMap<>(names.length * 2);
+        for (int slot = 0; slot < names.length; ++slot) {
+            slots.put(names[slot], slot);
+        }
+    }
+
+    static RowLayout of(Cell[] sortedCells) {
+        return of(sortedCells.length, cur -> nameOf(sortedCells[cur]));
+    }
+
+    static RowLayout of(String[] sortedNames) {
+        return of(sortedNames.length, cur -> sortedNames[cur]);
+    }
+
+    private static RowLayout of(int size, IntFunction<String> names) {
+        // Interned in a direct-mapped table, layouts are immutable so a racy read sees a complete one or null.
+        int hash = 1;
+        for (int cur = 0; cur < size; ++cur) {
+            hash = 31 * hash + names.apply(cur).hashCode();
+        }
+        int slot = (hash ^ (hash >>> 16)) & (layouts.length - 1);
+        RowLayout layout = layouts[slot];
+        if (layout != null && layout.hash == hash && layout.matches(size, names)) {
+            return layout;
+        }
+        String[] copied = new String[size];
+        for (int cur = 0; cur < size; ++cur) {
+            copied[cur] = names.apply(cur);
+        }
+        layout = new RowLayout(copied, hash);
+        layouts[slot] = layout;
+        return layout;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public String[] getNames() {
+        return Arrays.copyOf(names, names.length);
+    }
+
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    boolean sameNames(RowLayout other) {
+        // Usually the same instance, but an interned layout can be evicted by a colliding one.
+        return other == this || (other.hash == hash && Arrays.equals(names, other.names));
+    }
+
+    private boolean matches(int size, IntFunction<String> others) {
+        if (names.length != size) {
+            return false;
+        }
+        for (int cur = 0; cur < size; ++cur) {
+            if (!names[cur].equals(others.apply(cur))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String nameOf(Cell cell) {
+        return cell.getColumnDescriptor().getKeyDescriptor().getName();
+    }
+}
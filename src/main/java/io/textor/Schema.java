@@ -0,0 +1,101 @@
+package io.textor;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Column descriptors declared once by a schema header, so that rows after the header carry their values only.
+ * Attributes and columns are each sorted by name, same as cells of a row, and a value's position in the row line is
+ * its slot: attributes first, then columns.
+ */
+public class Schema {
+    private final ColumnDescriptor[] cols;
+    private final ColumnDescriptor[] attrs;
+    private final RowLayout colLayout;
+    private final RowLayout attrLayout;
+
+    public Schema(ColumnDescriptor[] columns, ColumnDescriptor[] attributes) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("Cannot construct schema from no column.");
+        }
+        cols = Arrays.copyOf(columns, columns.length);
+        attrs = attributes == null ? new ColumnDescriptor[0] : Arrays.copyOf(attributes, attributes.length);
+        for (int slot = 0; slot < attrs.length; ++slot) {
+            attrs[slot] = asAttribute(Objects.requireNonNull(attrs[slot]));
+        }
+        colLayout = RowLayout.of(sortedNames(cols));
+        attrLayout = RowLayout.of(sortedNames(attrs));
+    }
+
+    public static Schema of(Row row) {
+        ColumnDescriptor[] columns = new ColumnDescriptor[row.getColumnCount()];
+        for (int slot = 0; slot < columns.length; ++slot) {
+            columns[slot] = row.getColumn(slot).getColumnDescriptor();
+        }
+        ColumnDescriptor[] attributes = new ColumnDescriptor[row.getAttributeCount()];
+        for (int slot = 0; slot < attributes.length; ++slot) {
+            attributes[slot] = row.getAttribute(slot).getColumnDescriptor();
+        }
+        return new Schema(columns, attributes);
+    }
+
+    public int getColumnCount() {
+        return cols.length;
+    }
+
+    public ColumnDescriptor getColumn(int slot) {
+        return cols[slot];
+    }
+
+    public int getAttributeCount() {
+        return attrs.length;
+    }
+
+    public ColumnDescriptor getAttribute(int slot) {
+        return attrs[slot];
+    }
+
+    public boolean matches(Row row) {
+        // Same names and value types, so the row's cells in slot order line up with the declared descriptors.
+        Objects.requireNonNull(row);
+        if (!colLayout.sameNames(row.getColumnLayout()) || !attrLayout.sameNames(row.getAttributeLayout())) {
+            return false;
+        }
+        for (int slot = 0; slot < cols.length; ++slot) {
+            if (!matches(cols[slot], row.getColumn(slot))) {
+                return false;
+            }
+        }
+        for (int slot = 0; slot < attrs.length; ++slot) {
+            if (!matches(attrs[slot], row.getAttribute(slot))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(ColumnDescriptor descriptor, Cell cell) {
+        ColumnDescriptor other = cell.getColumnDescriptor();
+        return other == descriptor || descriptor.getValueDescriptor().matches(other.getValueDescriptor());
+    }
+
+    private static ColumnDescriptor asAttribute(ColumnDescriptor descriptor) {
+        // Rows take column keys as attributes too, but the header has to declare them as attributes.
+        KeyDescriptor key = descriptor.getKeyDescriptor();
+        if (key.getType() == KeyType.ATTRIBUTE) {
+            return descriptor;
+        }
+        return new ColumnDescriptor(new KeyDescriptor(key.getName(), KeyType.ATTRIBUTE), descriptor.getValueDescriptor());
+    }
+
+    private static String[] sortedNames(ColumnDescriptor[] descriptors) {
+        String[] names = new String[descriptors.length];
+        for (int slot = 0; slot < names.length; ++slot) {
+            names[slot] = Objects.requireNonNull(descriptors[slot]).getKeyDescriptor().getName();
+            if (slot > 0 && names[slot - 1].compareTo(names[slot]) >= 0) {
+                throw new IllegalArgumentException("Schema keys are not sorted by name or have duplicates at '" + names[slot] + "'.");
+            }
+        }
+        return names;
+    }
+}
@@ -28,4 +28,19 @@ public class ValueDescriptor {
     public int getBinarySize() {
         return size;
     }
+
+    public boolean matches(ValueDescriptor other) {
+        // Same type and the parameters that type uses, the others are ignored.
+        if (other == this) {
+            return true;
+        }
+        if (other == null || type != other.type) {
+            return false;
+        }
+        return switch (type) {
+            case DECIMAL -> getDecimalWidth() == other.getDecimalWidth() && getDecimalPrecision() == other.getDecimalPrecision();
+            case BINARY -> getBinarySize() == other.getBinarySize();
+            case ASCII, INTEGER, TIMESTAMP -> true;
+        };
+    }
 }
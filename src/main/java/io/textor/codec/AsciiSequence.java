@@ -0,0 +1,79 @@
+package io.textor.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Reusable ASCII view over a range of a byte array or a {@link ByteBuffer}, decoded without copying bytes into a
+ * {@link String}. Index 0 of the view is the first byte of the range, so decoding cursors count from there.
+ */
+public final class AsciiSequence implements CharSequence {
+    private final static byte[] empty = new byte[0];
+
+    private byte[] array = empty;
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    public AsciiSequence() {
+    }
+
+    public AsciiSequence(byte[] bytes, int offset, int length) {
+        wrap(bytes, offset, length);
+    }
+
+    public AsciiSequence(ByteBuffer buffer, int offset, int length) {
+        wrap(buffer, offset, length);
+    }
+
+    public AsciiSequence wrap(byte[] bytes, int offset, int length) {
+        Objects.requireNonNull(bytes);
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        this.array = bytes;
+        this.buffer = null;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    public AsciiSequence wrap(ByteBuffer buffer, int offset, int length) {
+        Objects.requireNonNull(buffer);
+        Objects.checkFromIndexSize(offset, length, buffer.capacity());
+        if (buffer.hasArray()) {
+            return wrap(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+        this.array = null;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length);
+        return (char)((array != null ? array[offset + index] : buffer.get(offset + index)) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length);
+        if (array != null) {
+            return new String(array, offset + start, end - start, StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(offset + start, bytes);
+        return new String(bytes, 0, bytes.length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
@@ -0,0 +1,30 @@
+package io.textor.codec;
+
+import java.nio.ByteBuffer;
+
+class ByteBufferAppendable implements Appendable {
+    private final ByteBuffer buffer;
+
+    ByteBufferAppendable(ByteBuffer target) {
+        buffer = target;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) {
+        for (int cur = start; cur < end; ++cur) {
+            buffer.put((byte)csq.charAt(cur));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) {
+        buffer.put((byte)c);
+        return this;
+    }
+}
@@ -0,0 +1,17 @@
+package io.textor.codec;
+
+import io.textor.ColumnDescriptor;
+
+import java.time.ZonedDateTime;
+
+public interface CellVisitor {
+    void visitInteger(ColumnDescriptor descriptor, long value);
+
+    void visitDecimal(ColumnDescriptor descriptor, double value);
+
+    void visitAscii(ColumnDescriptor descriptor, String value);
+
+    void visitBinary(ColumnDescriptor descriptor, byte[] value);
+
+    void visitTimestamp(ColumnDescriptor descriptor, ZonedDateTime value);
+}
@@ -1,64 +1,632 @@
 package io.textor.codec;
 
 import io.textor.*;
+import io.textor.metrics.CodecMetrics;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 public class Codec {
     private final static Cell[] zeros = new Cell[0];
+    private final static char schemaToken = '#';
 
     public static String encode(Row row) {
         // @TABLE(A)"system_admin",@_user_defined(D:3,1)10.9,_last_visit(T)2019-09-15T08:58:18.788860-04:00,_age(L)35
         if (row == null) {
             return "";
         }
-        StringBuilder encoded = new StringBuilder();
-        encoded.append(encodeCells(row.getAttributes(), encode -> !encode.startsWith("@") ? "@" + encode : encode));
-        if (encoded.length() > 0 && row.getColumns().length > 0) {
-            encoded.append(',');
+        return CodecUtils.encodeToString(sink -> encode(row, sink));
+    }
+
+    public static <T extends Appendable> T encode(Row row, T sink) throws IOException {
+        return encode(row, (AsciiDictionary)null, sink);
+    }
+
+    public static String encode(Row row, AsciiDictionary dictionary) {
+        if (row == null) {
+            return "";
+        }
+        return CodecUtils.encodeToString(sink -> encode(row, dictionary, sink));
+    }
+
+    public static <T extends Appendable> T encode(Row row, AsciiDictionary dictionary, T sink) throws IOException {
+        // ASCII values with an id in dictionary are written as $id, dictionary may be null.
+        if (row == null) {
+            return sink;
+        }
+        CodecMetrics metrics = CodecMetrics.current();
+        boolean sampled = metrics != null && metrics.sample();
+        long start = sampled ? System.nanoTime() : 0L;
+        CountingAppendable counting = metrics == null ? null : new CountingAppendable(sink);
+        Appendable out = counting == null ? sink : counting;
+        int attrCount = row.getAttributeCount();
+        int columnCount = row.getColumnCount();
+        for (int cur = 0; cur < attrCount; ++cur) {
+            if (cur > 0) {
+                out.append(',');
+            }
+            encodeCell(row.getAttribute(cur), true, dictionary, out, metrics, sampled);
+        }
+        for (int cur = 0; cur < columnCount; ++cur) {
+            if (cur > 0 || attrCount > 0) {
+                out.append(',');
+            }
+            encodeCell(row.getColumn(cur), false, dictionary, out, metrics, sampled);
+        }
+        if (metrics != null) {
+            metrics.row(CodecMetrics.Operation.ENCODE, counting.length, sampled ? System.nanoTime() - start : -1L);
+        }
+        return sink;
+    }
+
+    public static void encode(Row row, ByteBuffer buffer) {
+        encode(row, (AsciiDictionary)null, buffer);
+    }
+
+    public static void encode(Row row, AsciiDictionary dictionary, ByteBuffer buffer) {
+        // On failure, including BufferOverflowException, buffer's position is restored.
+        int position = buffer.position();
+        try {
+            encode(row, dictionary, new ByteBufferAppendable(buffer));
+        }
+        catch (IOException exception) {
+            buffer.position(position);
+            throw new UncheckedIOException(exception);
+        }
+        catch (BufferOverflowException exception) {
+            buffer.position(position);
+            throw counted(CodecMetrics.current(), CodecMetrics.ErrorKind.OVERFLOW, exception);
+        }
+        catch (RuntimeException exception) {
+            buffer.position(position);
+            throw exception;
+        }
+    }
+
+    public static int encodedLength(Row row) {
+        return encodedLength(row, (AsciiDictionary)null);
+    }
+
+    public static int encodedLength(Row row, AsciiDictionary dictionary) {
+        if (row == null) {
+            return 0;
+        }
+        int attrCount = row.getAttributeCount();
+        int columnCount = row.getColumnCount();
+        int length = Math.max(attrCount + columnCount - 1, 0) /* Commas. */;
+        for (int cur = 0; cur < attrCount; ++cur) {
+            length += encodedCellLength(row.getAttribute(cur), true, dictionary);
+        }
+        for (int cur = 0; cur < columnCount; ++cur) {
+            length += encodedCellLength(row.getColumn(cur), false, dictionary);
+        }
+        return length;
+    }
+
+    public static String encodeSchema(Schema schema) {
+        // #@TABLE(A),@_user_defined(D:3,1),_age(L),_last_visit(T)
+        return CodecUtils.encodeToString(sink -> encodeSchema(schema, sink));
+    }
+
+    public static <T extends Appendable> T encodeSchema(Schema schema, T sink) throws IOException {
+        sink.append(schemaToken);
+        for (int cur = 0; cur < schema.getAttributeCount(); ++cur) {
+            if (cur > 0) {
+                sink.append(',');
+            }
+            KeyUtils.encodeKey(schema.getAttribute(cur), sink);
+        }
+        for (int cur = 0; cur < schema.getColumnCount(); ++cur) {
+            if (cur > 0 || schema.getAttributeCount() > 0) {
+                sink.append(',');
+            }
+            KeyUtils.encodeKey(schema.getColumn(cur), sink);
+        }
+        return sink;
+    }
+
+    public static boolean isSchema(CharSequence expr) {
+        return expr.length() > 0 && expr.charAt(0) == schemaToken;
+    }
+
+    public static String encodeDefinition(int id, String value) {
+        // $12="system_admin"
+        return ValueUtils.dictionaryToken + Integer.toString(id) + '=' + ValueUtils.ASCII.encode(value);
+    }
+
+    public static String encodeDictionaryReset() {
+        return String.valueOf(ValueUtils.dictionaryToken);
+    }
+
+    public static boolean isDictionary(CharSequence expr) {
+        // A lone '$' or $digits= , a values-only row may begin with a $id reference too.
+        if (expr.length() == 0 || expr.charAt(0) != ValueUtils.dictionaryToken) {
+            return false;
+        }
+        int cur = 1;
+        while (cur < expr.length() && expr.charAt(cur) >= '0' && expr.charAt(cur) <= '9') {
+            ++cur;
+        }
+        return cur == expr.length() ? cur == 1 : cur > 1 && expr.charAt(cur) == '=';
+    }
+
+    public static void decodeDictionary(CharSequence expr, AsciiDictionary dictionary) {
+        // Applies a definition or a reset line to dictionary.
+        try {
+            decodeDictionaryLine(expr, dictionary);
+        }
+        catch (IllegalArgumentException exception) {
+            throw counted(CodecMetrics.current(), CodecMetrics.ErrorKind.DICTIONARY, exception);
         }
-        encoded.append(encodeCells(row.getColumns(), encode -> encode));
-        return encoded.toString();
     }
 
-    private static String encodeCells(Cell[] cells, EncodeManipulator manipulator) {
-        if (cells == null || cells.length == 0) {
+    private static void decodeDictionaryLine(CharSequence expr, AsciiDictionary dictionary) {
+        if (!isDictionary(expr)) {
+            throw new IllegalArgumentException("Not a dictionary line.");
+        }
+        if (expr.length() == 1) {
+            dictionary.clear();
+            return;
+        }
+        int cur = 1;
+        long id = 0;
+        for (; cur < expr.length() && expr.charAt(cur) != '='; ++cur) {
+            char c = expr.charAt(cur);
+            if (c < '0' || c > '9' || id > Integer.MAX_VALUE / 10) {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' in dictionary id.");
+            }
+            id = id * 10 + (c - '0');
+        }
+        if (cur == 1 || cur >= expr.length() - 1) {
+            throw new IllegalArgumentException("Incomplete dictionary definition.");
+        }
+        DecodingState state = new DecodingState(cur + 1);
+        String value = ValueUtils.ASCII.decode(expr, state);
+        if (state.getCursor() != -1) {
+            throw new IllegalArgumentException("Unexpected ',' after dictionary value.");
+        }
+        dictionary.define((int)id, value);
+    }
+
+    public static String encode(Row row, Schema schema) {
+        if (row == null) {
             return "";
         }
-        StringBuilder encoded = new StringBuilder();
-        encoded.append(manipulator.manipulate(encodeCell(cells[0])));
-        if (cells.length > 1) {
-            int cur = 1;
-            for (; cur < cells.length; ++cur) {
-                encoded.append(',');
-                encoded.append(manipulator.manipulate(encodeCell(cells[cur])));
+        return CodecUtils.encodeToString(sink -> encode(row, schema, sink));
+    }
+
+    public static <T extends Appendable> T encode(Row row, Schema schema, T sink) throws IOException {
+        return encode(row, schema, null, sink);
+    }
+
+    public static <T extends Appendable> T encode(Row row, Schema schema, AsciiDictionary dictionary, T sink) throws IOException {
+        // Values only, in slot order of the schema that row must match.
+        if (row == null) {
+            return sink;
+        }
+        CodecMetrics metrics = CodecMetrics.current();
+        if (!schema.matches(row)) {
+            throw counted(metrics, CodecMetrics.ErrorKind.SCHEMA, new IllegalArgumentException("Row " + row.getIndex() + " doesn't match schema."));
+        }
+        boolean sampled = metrics != null && metrics.sample();
+        long start = sampled ? System.nanoTime() : 0L;
+        CountingAppendable counting = metrics == null ? null : new CountingAppendable(sink);
+        Appendable out = counting == null ? sink : counting;
+        int attrCount = row.getAttributeCount();
+        for (int cur = 0; cur < attrCount; ++cur) {
+            if (cur > 0) {
+                out.append(',');
+            }
+            encodeAnyValue(row.getAttribute(cur), dictionary, out, metrics, sampled);
+        }
+        for (int cur = 0; cur < row.getColumnCount(); ++cur) {
+            if (cur > 0 || attrCount > 0) {
+                out.append(',');
             }
+            encodeAnyValue(row.getColumn(cur), dictionary, out, metrics, sampled);
         }
-        return encoded.toString();
+        if (metrics != null) {
+            metrics.row(CodecMetrics.Operation.ENCODE, counting.length, sampled ? System.nanoTime() - start : -1L);
+        }
+        return sink;
     }
 
-    private static String encodeCell(Cell cell) {
-        return KeyUtils.encodeKey(cell.getColumnDescriptor()) + encodeAnyValue(cell);
+    public static void encode(Row row, Schema schema, ByteBuffer buffer) {
+        encode(row, schema, null, buffer);
     }
 
-    private static String encodeAnyValue(Cell cell) {
+    public static void encode(Row row, Schema schema, AsciiDictionary dictionary, ByteBuffer buffer) {
+        int position = buffer.position();
+        try {
+            encode(row, schema, dictionary, new ByteBufferAppendable(buffer));
+        }
+        catch (IOException exception) {
+            buffer.position(position);
+            throw new UncheckedIOException(exception);
+        }
+        catch (BufferOverflowException exception) {
+            buffer.position(position);
+            throw counted(CodecMetrics.current(), CodecMetrics.ErrorKind.OVERFLOW, exception);
+        }
+        catch (RuntimeException exception) {
+            buffer.position(position);
+            throw exception;
+        }
+    }
+
+    public static int encodedLength(Row row, Schema schema) {
+        return encodedLength(row, schema, null);
+    }
+
+    public static int encodedLength(Row row, Schema schema, AsciiDictionary dictionary) {
+        if (row == null) {
+            return 0;
+        }
+        checkSchema(row, schema);
+        int attrCount = row.getAttributeCount();
+        int columnCount = row.getColumnCount();
+        int length = Math.max(attrCount + columnCount - 1, 0) /* Commas. */;
+        for (int cur = 0; cur < attrCount; ++cur) {
+            length += encodedValueLength(row.getAttribute(cur), dictionary);
+        }
+        for (int cur = 0; cur < columnCount; ++cur) {
+            length += encodedValueLength(row.getColumn(cur), dictionary);
+        }
+        return length;
+    }
+
+    private static void checkSchema(Row row, Schema schema) {
+        if (!schema.matches(row)) {
+            throw new IllegalArgumentException("Row " + row.getIndex() + " doesn't match schema.");
+        }
+    }
+
+    private static void encodeCell(Cell cell, boolean asAttribute, AsciiDictionary dictionary, Appendable sink, CodecMetrics metrics, boolean sampled) throws IOException {
+        if (needsAttributeToken(cell, asAttribute)) {
+            sink.append(KeyType.ATTRIBUTE.getToken());
+        }
+        KeyUtils.encodeKey(cell.getColumnDescriptor(), sink);
+        encodeAnyValue(cell, dictionary, sink, metrics, sampled);
+    }
+
+    private static int encodedCellLength(Cell cell, boolean asAttribute, AsciiDictionary dictionary) {
+        int length = needsAttributeToken(cell, asAttribute) ? KeyType.ATTRIBUTE.getToken().length() : 0;
+        return length + KeyUtils.encodedKeyLength(cell.getColumnDescriptor()) + encodedValueLength(cell, dictionary);
+    }
+
+    private static boolean needsAttributeToken(Cell cell, boolean asAttribute) {
+        // Cells passed to row as attributes are always encoded as attributes.
+        return asAttribute && cell.getColumnDescriptor().getKeyDescriptor().getType() != KeyType.ATTRIBUTE;
+    }
+
+    private static void encodeAnyValue(Cell cell, AsciiDictionary dictionary, Appendable sink, CodecMetrics metrics, boolean sampled) throws IOException {
+        // Values of sampled rows are timed one by one.
+        long start = sampled ? System.nanoTime() : 0L;
+        encodeAnyValue(cell, dictionary, sink);
+        if (metrics != null) {
+            metrics.value(CodecMetrics.Operation.ENCODE, cell.getColumnDescriptor().getValueDescriptor().getType(), sampled ? System.nanoTime() - start : -1L);
+        }
+    }
+
+    private static void encodeAnyValue(Cell cell, AsciiDictionary dictionary, Appendable sink) throws IOException {
         ValueDescriptor value = cell.getColumnDescriptor().getValueDescriptor();
+        if (cell.isNull() && (value.getType() == ValueType.INTEGER || value.getType() == ValueType.DECIMAL)) {
+            return;
+        }
+        int id = dictionaryIdOf(cell, dictionary);
+        if (id != -1) {
+            sink.append(ValueUtils.dictionaryToken);
+            ValueUtils.Integer.encode(id, sink);
+            return;
+        }
+        switch (value.getType()) {
+            case INTEGER -> ValueUtils.Integer.encode(cell.getLong(), sink);
+            case DECIMAL -> ValueUtils.Decimal.encode(cell.getDouble(), value.getDecimalWidth(), value.getDecimalPrecision(), sink);
+            case ASCII -> ValueUtils.ASCII.encode(cell.getAsciiString(), sink);
+            case BINARY -> ValueUtils.Binary.encode(cell.getBinary(), 0, value.getBinarySize(), sink);
+            case TIMESTAMP -> ValueUtils.Timestamp.encode(cell.getTimestamp(), sink);
+        }
+    }
+
+    private static int dictionaryIdOf(Cell cell, AsciiDictionary dictionary) {
+        if (dictionary == null || cell.isNull() || cell.getColumnDescriptor().getValueDescriptor().getType() != ValueType.ASCII) {
+            return -1;
+        }
+        return dictionary.idOf(cell.getAsciiString());
+    }
+
+    private static int encodedValueLength(Cell cell, AsciiDictionary dictionary) {
+        ValueDescriptor value = cell.getColumnDescriptor().getValueDescriptor();
+        if (cell.isNull() && (value.getType() == ValueType.INTEGER || value.getType() == ValueType.DECIMAL)) {
+            return 0;
+        }
+        int id = dictionaryIdOf(cell, dictionary);
+        if (id != -1) {
+            return 1 + CodecUtils.lengthOf(id);
+        }
         return switch (value.getType()) {
-            case INTEGER -> ValueUtils.Integer.encode(cell.getInteger());
-            case DECIMAL -> ValueUtils.Decimal.encode(cell.getDecimal(), value.getDecimalWidth(), value.getDecimalPrecision());
-            case ASCII -> ValueUtils.ASCII.encode(cell.getAsciiString());
-            case BINARY -> ValueUtils.Binary.encode(cell.getBinary(), 0, value.getBinarySize());
-            case TIMESTAMP -> ValueUtils.Timestamp.encode(cell.getTimestamp());
+            case INTEGER -> ValueUtils.Integer.encodedLength(cell.getLong());
+            case DECIMAL -> ValueUtils.Decimal.encodedLength(cell.getDouble(), value.getDecimalWidth(), value.getDecimalPrecision());
+            case ASCII -> ValueUtils.ASCII.encodedLength(cell.getAsciiString());
+            case BINARY -> ValueUtils.Binary.encodedLength(cell.getBinary(), value.getBinarySize());
+            case TIMESTAMP -> ValueUtils.Timestamp.encodedLength(cell.getTimestamp());
         };
     }
 
-    public static Row decode(String expr, int index) {
-        DecodingState state = new DecodingState(CodecUtils.moveAfter(expr, 0, c -> Character.isWhitespace(c) || c == '\0'));
-        List<Cell> columns = new ArrayList<>();
-        List<Cell> attrs = new ArrayList<>();
+    public static Row decode(byte[] bytes, int offset, int length, int index) {
+        return decode(new AsciiSequence(bytes, offset, length), index);
+    }
+
+    public static Row decode(ByteBuffer buffer, int offset, int length, int index) {
+        return decode(new AsciiSequence(buffer, offset, length), index);
+    }
+
+    public static Row decode(CharSequence expr, int index) {
+        RowBuilder builder = new RowBuilder(index);
+        decode(expr, builder);
+        return builder.build();
+    }
+
+    public static void decode(CharSequence expr, CellVisitor visitor) {
+        decode(expr, (Projection)null, visitor);
+    }
+
+    public static Row decode(CharSequence expr, Projection projection, int index) {
+        RowBuilder builder = new RowBuilder(index);
+        decode(expr, projection, builder);
+        return builder.buildProjected();
+    }
+
+    public static void decode(CharSequence expr, Projection projection, CellVisitor visitor) {
+        decode(expr, projection, null, visitor);
+    }
+
+    public static Row decode(CharSequence expr, Projection projection, AsciiDictionary dictionary, int index) {
+        // Projection and dictionary may be null.
+        RowBuilder builder = new RowBuilder(index);
+        decode(expr, projection, dictionary, builder);
+        return projection == null ? builder.build() : builder.buildProjected();
+    }
+
+    public static void decode(CharSequence expr, Projection projection, AsciiDictionary dictionary, CellVisitor visitor) {
+        // Hands every decoded value to visitor without building cells or row, values not projected are skipped.
+        CodecMetrics metrics = CodecMetrics.current();
+        boolean sampled = metrics != null && metrics.sample();
+        long start = sampled ? System.nanoTime() : 0L;
+        DecodingState state = new DecodingState(CodecUtils.moveAfter(expr, 0, c -> Character.isWhitespace(c) || c == '\0'), dictionary);
         while (state.getCursor() != -1) {
-            Cell cell =  decodeCell(index, expr, state);
+            ColumnDescriptor descriptor;
+            try {
+                descriptor = KeyUtils.decodeKey(expr, state);
+            }
+            catch (IllegalArgumentException exception) {
+                throw counted(metrics, CodecMetrics.ErrorKind.KEY, exception);
+            }
+            try {
+                if (projection == null || projection.includes(descriptor)) {
+                    decodeValue(expr, descriptor, state, visitor, metrics, sampled);
+                }
+                else {
+                    skipValue(expr, descriptor, state);
+                }
+            }
+            catch (IllegalArgumentException exception) {
+                throw counted(metrics, CodecMetrics.ErrorKind.VALUE, exception);
+            }
+        }
+        if (metrics != null) {
+            metrics.row(CodecMetrics.Operation.DECODE, expr.length(), sampled ? System.nanoTime() - start : -1L);
+        }
+    }
+
+    public static Row decode(byte[] bytes, int offset, int length, Schema schema, int index) {
+        return decode(new AsciiSequence(bytes, offset, length), schema, index);
+    }
+
+    public static Row decode(ByteBuffer buffer, int offset, int length, Schema schema, int index) {
+        return decode(new AsciiSequence(buffer, offset, length), schema, index);
+    }
+
+    public static Row decode(CharSequence expr, Schema schema, int index) {
+        RowBuilder builder = new RowBuilder(index);
+        decode(expr, schema, builder);
+        return builder.build();
+    }
+
+    public static void decode(CharSequence expr, Schema schema, CellVisitor visitor) {
+        decode(expr, schema, null, visitor);
+    }
+
+    public static Row decode(CharSequence expr, Schema schema, Projection projection, int index) {
+        RowBuilder builder = new RowBuilder(index);
+        decode(expr, schema, projection, builder);
+        return builder.buildProjected();
+    }
+
+    public static void decode(CharSequence expr, Schema schema, Projection projection, CellVisitor visitor) {
+        decode(expr, schema, projection, null, visitor);
+    }
+
+    public static Row decode(CharSequence expr, Schema schema, Projection projection, AsciiDictionary dictionary, int index) {
+        RowBuilder builder = new RowBuilder(index);
+        decode(expr, schema, projection, dictionary, builder);
+        return projection == null ? builder.build() : builder.buildProjected();
+    }
+
+    public static void decode(CharSequence expr, Schema schema, Projection projection, AsciiDictionary dictionary, CellVisitor visitor) {
+        // Values only, the descriptor of each value is the schema's at the same position.
+        int attrCount = schema.getAttributeCount();
+        int count = attrCount + schema.getColumnCount();
+        boolean[] included = projection == null ? null : projection.includes(schema);
+        CodecMetrics metrics = CodecMetrics.current();
+        boolean sampled = metrics != null && metrics.sample();
+        long start = sampled ? System.nanoTime() : 0L;
+        DecodingState state = new DecodingState(0, dictionary);
+        for (int cur = 0; cur < count; ++cur) {
+            if (state.getCursor() == -1) {
+                throw counted(metrics, CodecMetrics.ErrorKind.SCHEMA, new IllegalArgumentException("Expect " + count + " values but find " + cur + "."));
+            }
+            ColumnDescriptor descriptor = cur < attrCount ? schema.getAttribute(cur) : schema.getColumn(cur - attrCount);
+            try {
+                if (included == null || included[cur]) {
+                    decodeValue(expr, descriptor, state, visitor, metrics, sampled);
+                }
+                else {
+                    skipValue(expr, descriptor, state);
+                }
+            }
+            catch (IllegalArgumentException exception) {
+                throw counted(metrics, CodecMetrics.ErrorKind.VALUE, exception);
+            }
+        }
+        if (state.getCursor() != -1) {
+            throw counted(metrics, CodecMetrics.ErrorKind.SCHEMA, new IllegalArgumentException("Expect " + count + " values but find more."));
+        }
+        if (metrics != null) {
+            metrics.row(CodecMetrics.Operation.DECODE, expr.length(), sampled ? System.nanoTime() - start : -1L);
+        }
+    }
+
+    public static Schema decodeSchema(CharSequence expr) {
+        try {
+            return decodeSchemaKeys(expr);
+        }
+        catch (IllegalArgumentException exception) {
+            throw counted(CodecMetrics.current(), CodecMetrics.ErrorKind.SCHEMA, exception);
+        }
+    }
+
+    private static Schema decodeSchemaKeys(CharSequence expr) {
+        if (!isSchema(expr)) {
+            throw new IllegalArgumentException("Schema doesn't begin with '" + schemaToken + "'.");
+        }
+        List<ColumnDescriptor> columns = new ArrayList<>();
+        List<ColumnDescriptor> attrs = new ArrayList<>();
+        DecodingState state = new DecodingState(1);
+        while (state.getCursor() != -1 && state.getCursor() < expr.length()) {
+            ColumnDescriptor descriptor = KeyUtils.decodeKey(expr, state);
+            (descriptor.getKeyDescriptor().getType() == KeyType.ATTRIBUTE ? attrs : columns).add(descriptor);
+            int cursor = state.getCursor();
+            if (cursor != -1 && cursor < expr.length()) {
+                if (expr.charAt(cursor) != ',') {
+                    throw new IllegalArgumentException("Unexpected character '" + expr.charAt(cursor) + "' after key.");
+                }
+                state.setCursor(CodecUtils.moveAfter(expr, cursor, ','));
+            }
+        }
+        return new Schema(columns.toArray(new ColumnDescriptor[0]), attrs.toArray(new ColumnDescriptor[0]));
+    }
+
+    private static void decodeValue(CharSequence expr, ColumnDescriptor columnDesc, DecodingState state, CellVisitor visitor, CodecMetrics metrics, boolean sampled) {
+        long start = sampled ? System.nanoTime() : 0L;
+        decodeValue(expr, columnDesc, state, visitor);
+        if (metrics != null) {
+            metrics.value(CodecMetrics.Operation.DECODE, columnDesc.getValueDescriptor().getType(), sampled ? System.nanoTime() - start : -1L);
+        }
+    }
+
+    private static void decodeValue(CharSequence expr, ColumnDescriptor columnDesc, DecodingState state, CellVisitor visitor) {
+        ValueDescriptor valueDesc = columnDesc.getValueDescriptor();
+        switch (valueDesc.getType()) {
+            case ASCII -> visitor.visitAscii(columnDesc, ValueUtils.ASCII.decode(expr, state));
+            case BINARY -> visitor.visitBinary(columnDesc, ValueUtils.Binary.decode(expr, valueDesc.getBinarySize(), state));
+            case DECIMAL -> visitor.visitDecimal(columnDesc, ValueUtils.Decimal.decodeDouble(expr, valueDesc.getDecimalWidth(), valueDesc.getDecimalPrecision(), state));
+            case INTEGER -> visitor.visitInteger(columnDesc, ValueUtils.Integer.decodeLong(expr, state));
+            case TIMESTAMP -> visitor.visitTimestamp(columnDesc, ValueUtils.Timestamp.decode(expr, state));
+        }
+    }
+
+    static void skipValue(CharSequence expr, ColumnDescriptor columnDesc, DecodingState state) {
+        ValueDescriptor valueDesc = columnDesc.getValueDescriptor();
+        switch (valueDesc.getType()) {
+            case ASCII -> ValueUtils.ASCII.skip(expr, state);
+            case BINARY -> ValueUtils.Binary.skip(expr, valueDesc.getBinarySize(), state);
+            case DECIMAL -> ValueUtils.Decimal.skip(expr, state);
+            case INTEGER -> ValueUtils.Integer.skip(expr, state);
+            case TIMESTAMP -> ValueUtils.Timestamp.skip(expr, state);
+        }
+    }
+
+    private static <E extends RuntimeException> E counted(CodecMetrics metrics, CodecMetrics.ErrorKind kind, E exception) {
+        if (metrics != null) {
+            metrics.error(kind);
+        }
+        return exception;
+    }
+
+    private static class CountingAppendable implements Appendable {
+        // Counts what goes to the sink of an instrumented encode.
+        private final Appendable sink;
+        private long length;
+
+        CountingAppendable(Appendable target) {
+            sink = target;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            CharSequence chars = csq == null ? "null" : csq;
+            sink.append(chars);
+            length += chars.length();
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            CharSequence chars = csq == null ? "null" : csq;
+            sink.append(chars, start, end);
+            length += end - start;
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            sink.append(c);
+            ++length;
+            return this;
+        }
+    }
+
+    private static class RowBuilder implements CellVisitor {
+        private final List<Cell> columns = new ArrayList<>();
+        private final List<Cell> attrs = new ArrayList<>();
+        private final int index;
+
+        RowBuilder(int rowIndex) {
+            index = rowIndex;
+        }
+
+        @Override
+        public void visitInteger(ColumnDescriptor descriptor, long value) {
+            add(new Cell(index, descriptor, value));
+        }
+
+        @Override
+        public void visitDecimal(ColumnDescriptor descriptor, double value) {
+            add(new Cell(index, descriptor, value));
+        }
+
+        @Override
+        public void visitAscii(ColumnDescriptor descriptor, String value) {
+            add(new Cell(index, descriptor, value));
+        }
+
+        @Override
+        public void visitBinary(ColumnDescriptor descriptor, byte[] value) {
+            add(new Cell(index, descriptor, value));
+        }
+
+        @Override
+        public void visitTimestamp(ColumnDescriptor descriptor, ZonedDateTime value) {
+            add(new Cell(index, descriptor, value));
+        }
+
+        private void add(Cell cell) {
             if (cell.getColumnDescriptor().getKeyDescriptor().getType() == KeyType.ATTRIBUTE) {
                 attrs.add(cell);
             }
@@ -66,17 +634,14 @@ public class Codec {
                 columns.add(cell);
             }
         }
-        return new Row(columns.toArray(zeros), attrs.toArray(zeros));
-    }
 
-    private static Cell decodeCell(int index, String expr, DecodingState state) {
-        ColumnDescriptor columnDesc = KeyUtils.decodeKey(expr, state);
-        return switch (columnDesc.getValueDescriptor().getType()) {
-            case ASCII -> new Cell(index, columnDesc, ValueUtils.ASCII.decode(expr, state));
-            case BINARY -> new Cell(index, columnDesc, ValueUtils.Binary.decode(expr, columnDesc.getValueDescriptor().getBinarySize(), state));
-            case DECIMAL -> new Cell(index, columnDesc, ValueUtils.Decimal.decode(expr, columnDesc.getValueDescriptor().getDecimalWidth(), columnDesc.getValueDescriptor().getDecimalPrecision(), state));
-            case INTEGER -> new Cell(index, columnDesc, ValueUtils.Integer.decode(expr, state));
-            case TIMESTAMP -> new Cell(index, columnDesc, ValueUtils.Timestamp.decode(expr, state));
-        };
+        Row build() {
+            return new Row(columns.toArray(zeros), attrs.toArray(zeros));
+        }
+
+        Row buildProjected() {
+            // A projection may leave no column.
+            return new Row(index, columns.toArray(zeros), attrs.toArray(zeros));
+        }
     }
 }
@@ -2,10 +2,13 @@ package io.textor.codec;
 
 import io.textor.DecodingState;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 public class CodecUtils {
-    static int moveAfter(String expr, int offset, char token) {
+    static int moveAfter(CharSequence expr, int offset, char token) {
         // If token is found, cursor is located after the token, otherwise return -1 as indexOf.
-        int n = expr.indexOf(token, offset);
+        int n = indexOf(expr, token, offset);
         if (n == -1) {
             return -1;
         }
@@ -14,7 +17,19 @@ public class CodecUtils {
         }
     }
 
-    static int moveAfter(String expr, int offset, CharacterChecker skipped) {
+    static int indexOf(CharSequence expr, char token, int offset) {
+        if (expr instanceof String str) {
+            return str.indexOf(token, offset);
+        }
+        for (int cursor = Math.max(offset, 0); cursor < expr.length(); ++cursor) {
+            if (expr.charAt(cursor) == token) {
+                return cursor;
+            }
+        }
+        return -1;
+    }
+
+    static int moveAfter(CharSequence expr, int offset, CharacterChecker skipped) {
         validateOffset(expr, offset);
         int cursor = offset;
         for (; cursor < expr.length(); ++cursor) {
@@ -26,7 +41,7 @@ public class CodecUtils {
         return cursor;
     }
 
-    static void validateOffset(String expr, int offset) {
+    static void validateOffset(CharSequence expr, int offset) {
         if (offset < 0) {
             throw new IllegalArgumentException("Illegal offset: " + offset + ".");
         }
@@ -35,10 +50,16 @@ public class CodecUtils {
         }
     }
 
-    static String consumeSkip(String expr, char token, DecodingState state, CharacterChecker checker) {
-        validateOffset(expr, state.getCursor());
+    static String consumeSkip(CharSequence expr, char token, DecodingState state, CharacterChecker checker) {
         int begin = state.getCursor();
-        int cur = begin;
+        int end = skipTo(expr, token, state, checker);
+        return expr.subSequence(begin, end).toString();
+    }
+
+    static int skipTo(CharSequence expr, char token, DecodingState state, CharacterChecker checker) {
+        // Same as consumeSkip but returns where the consumed text ends instead of copying it.
+        validateOffset(expr, state.getCursor());
+        int cur = state.getCursor();
         for (; cur < expr.length(); ++cur) {
             char c = expr.charAt(cur);
             if (c == token) {
@@ -49,7 +70,7 @@ public class CodecUtils {
             }
         }
         state.setCursor(CodecUtils.moveAfter(expr, cur, token));
-        return expr.substring(begin, cur);
+        return cur;
     }
 
     static boolean isNumber(char c) {
@@ -63,4 +84,48 @@ public class CodecUtils {
     static boolean isLowerLetter(char c) {
         return 'a' <= c && c <= 'z';
     }
+
+    static String encodeToString(Encoding encoding) {
+        StringBuilder encoded = new StringBuilder();
+        try {
+            encoding.encodeTo(encoded);
+        }
+        catch (IOException exception) {
+            // StringBuilder never throws.
+            throw new UncheckedIOException(exception);
+        }
+        return encoded.toString();
+    }
+
+    static void appendLong(Appendable sink, long value) throws IOException {
+        if (sink instanceof StringBuilder builder) {
+            builder.append(value);
+            return;
+        }
+        if (value < 0) {
+            sink.append('-');
+        }
+        // Work on the negative magnitude so Long.MIN_VALUE needs no special case.
+        long negative = value < 0 ? value : -value;
+        long divisor = 1;
+        for (int n = digitsOf(negative) - 1; n > 0; --n) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            sink.append((char)('0' - negative / divisor));
+            negative %= divisor;
+        }
+    }
+
+    static int lengthOf(long value) {
+        return value < 0 ? digitsOf(value) + 1 : digitsOf(-value);
+    }
+
+    private static int digitsOf(long negative) {
+        int digits = 1;
+        for (long bound = -10; digits < 19 && negative <= bound; bound *= 10) {
+            ++digits;
+        }
+        return digits;
+    }
 }
@@ -0,0 +1,54 @@
+package io.textor.codec;
+
+import io.textor.ColumnDescriptor;
+
+class DescriptorCache {
+    private final Entry[] entries;
+    private final int mask;
+
+    DescriptorCache(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Cache capacity must be a power of 2 but find " + capacity + ".");
+        }
+        entries = new Entry[capacity];
+        mask = capacity - 1;
+    }
+
+    ColumnDescriptor get(CharSequence expr, int begin, int end, int hash) {
+        // Entries are immutable and descriptors have final fields only, so a racy read sees a complete entry or null.
+        Entry entry = entries[slot(hash)];
+        if (entry != null && entry.hash == hash && matches(entry.header, expr, begin, end)) {
+            return entry.descriptor;
+        }
+        return null;
+    }
+
+    void put(String header, ColumnDescriptor descriptor) {
+        // Direct-mapped, a colliding header simply replaces the old one and the cache never grows.
+        int hash = header.hashCode();
+        entries[slot(hash)] = new Entry(header, hash, descriptor);
+    }
+
+    private int slot(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static boolean matches(String header, CharSequence expr, int begin, int end) {
+        int length = end - begin;
+        if (header.length() != length) {
+            return false;
+        }
+        if (expr instanceof String str) {
+            return str.regionMatches(begin, header, 0, length);
+        }
+        for (int cur = 0; cur < length; ++cur) {
+            if (header.charAt(cur) != expr.charAt(begin + cur)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private record Entry(String header, int hash, ColumnDescriptor descriptor) {
+    }
+}
@@ -0,0 +1,8 @@
+package io.textor.codec;
+
+import java.io.IOException;
+
+@FunctionalInterface
+interface Encoding {
+    void encodeTo(Appendable sink) throws IOException;
+}
@@ -0,0 +1,62 @@
+package io.textor.codec;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Reusable holder of a decoded timestamp as epoch seconds, nanos, offset and zone, filled without building a
+ * {@link ZonedDateTime}. The offset is the one the zone has at that instant, same as the decoded ZonedDateTime.
+ */
+public class EpochTimestamp {
+    private long epochSecond;
+    private int nano;
+    private ZoneOffset offset;
+    private ZoneId zone;
+
+    public long getEpochSecond() {
+        return epochSecond;
+    }
+
+    public int getNano() {
+        return nano;
+    }
+
+    public long getEpochNanos() {
+        return Math.addExact(Math.multiplyExact(epochSecond, 1_000_000_000L), nano);
+    }
+
+    public ZoneOffset getOffset() {
+        return offset;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public ZonedDateTime toZonedDateTime() {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), zone);
+    }
+
+    public EpochTimestamp set(ZonedDateTime timestamp) {
+        epochSecond = timestamp.toEpochSecond();
+        nano = timestamp.getNano();
+        offset = timestamp.getOffset();
+        zone = timestamp.getZone();
+        return this;
+    }
+
+    void set(long epochSecond, int nano, ZoneOffset parsedOffset, ZoneId zone) {
+        this.epochSecond = epochSecond;
+        this.nano = nano;
+        this.zone = zone;
+        if (zone instanceof ZoneOffset zoneOffset) {
+            offset = zoneOffset;
+        }
+        else {
+            // The bracketed zone wins over the written offset, like ZonedDateTime.parse.
+            offset = zone.getRules().isFixedOffset() ? zone.getRules().getOffset(Instant.EPOCH) : zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+        }
+    }
+}
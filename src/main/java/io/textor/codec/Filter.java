@@ -0,0 +1,117 @@
+package io.textor.codec;
+
+import io.textor.AsciiDictionary;
+import io.textor.ColumnDescriptor;
+import io.textor.DecodingState;
+import io.textor.Schema;
+
+import java.util.Arrays;
+
+/**
+ * Predicates that all have to hold for a row, tested on the encoded line before anything of the row is decoded.
+ * Values without predicates are skipped, and testing stops at the first predicate that fails.
+ */
+public class Filter {
+    private final static int maxPredicates = Long.SIZE;
+    private final Predicate[] predicates;
+    // Values positions tested by each predicate, for the last schema this filter was applied to.
+    private volatile SchemaPositions positions;
+
+    public Filter(Predicate... predicates) {
+        if (predicates.length == 0 || predicates.length > maxPredicates) {
+            throw new IllegalArgumentException("Filter takes 1 to " + maxPredicates + " predicates but find " + predicates.length + ".");
+        }
+        this.predicates = Arrays.copyOf(predicates, predicates.length);
+    }
+
+    public boolean test(CharSequence expr) {
+        return test(expr, (AsciiDictionary)null);
+    }
+
+    public boolean test(CharSequence expr, AsciiDictionary dictionary) {
+        // Self-describing line, a predicate whose key doesn't appear is tested as null.
+        long tested = 0L;
+        DecodingState state = new DecodingState(CodecUtils.moveAfter(expr, 0, c -> Character.isWhitespace(c) || c == '\0'));
+        while (state.getCursor() != -1) {
+            ColumnDescriptor descriptor = KeyUtils.decodeKey(expr, state);
+            int begin = state.getCursor();
+            Codec.skipValue(expr, descriptor, state);
+            for (int cur = 0; cur < predicates.length; ++cur) {
+                if (predicates[cur].appliesTo(descriptor)) {
+                    if (!predicates[cur].test(expr, begin, valueEnd(expr, state), descriptor.getValueDescriptor(), dictionary)) {
+                        return false;
+                    }
+                    tested |= 1L << cur;
+                }
+            }
+        }
+        for (int cur = 0; cur < predicates.length; ++cur) {
+            if ((tested & (1L << cur)) == 0 && !predicates[cur].testAbsent()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean test(CharSequence expr, Schema schema) {
+        return test(expr, schema, null);
+    }
+
+    public boolean test(CharSequence expr, Schema schema, AsciiDictionary dictionary) {
+        // Values-only line, values are skipped up to the last position any predicate tests.
+        SchemaPositions applied = positionsOf(schema);
+        for (int cur = 0; cur < predicates.length; ++cur) {
+            if (applied.positions[cur] == -1 && !predicates[cur].testAbsent()) {
+                return false;
+            }
+        }
+        int attrCount = schema.getAttributeCount();
+        DecodingState state = new DecodingState(0);
+        for (int position = 0; position <= applied.last; ++position) {
+            if (state.getCursor() == -1) {
+                throw new IllegalArgumentException("Expect " + (attrCount + schema.getColumnCount()) + " values but find " + position + ".");
+            }
+            ColumnDescriptor descriptor = position < attrCount ? schema.getAttribute(position) : schema.getColumn(position - attrCount);
+            int begin = state.getCursor();
+            Codec.skipValue(expr, descriptor, state);
+            for (int cur = 0; cur < predicates.length; ++cur) {
+                if (applied.positions[cur] == position && !predicates[cur].test(expr, begin, valueEnd(expr, state), descriptor.getValueDescriptor(), dictionary)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static int valueEnd(CharSequence expr, DecodingState state) {
+        // Cursor is after the comma that ends the value, or -1 for the last value.
+        return state.getCursor() == -1 ? expr.length() : state.getCursor() - 1;
+    }
+
+    private SchemaPositions positionsOf(Schema schema) {
+        SchemaPositions last = positions;
+        if (last != null && last.schema == schema) {
+            return last;
+        }
+        int attrCount = schema.getAttributeCount();
+        int count = attrCount + schema.getColumnCount();
+        int[] applied = new int[predicates.length];
+        int lastPosition = -1;
+        for (int cur = 0; cur < predicates.length; ++cur) {
+            applied[cur] = -1;
+            for (int position = 0; position < count; ++position) {
+                if (predicates[cur].appliesTo(position < attrCount ? schema.getAttribute(position) : schema.getColumn(position - attrCount))) {
+                    applied[cur] = position;
+                    lastPosition = Math.max(lastPosition, position);
+                    break;
+                }
+            }
+        }
+        last = new SchemaPositions(schema, applied, lastPosition);
+        positions = last;
+        return last;
+    }
+
+    private record SchemaPositions(Schema schema, int[] positions, int last) {
+    }
+}
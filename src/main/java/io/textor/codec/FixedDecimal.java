@@ -0,0 +1,97 @@
+package io.textor.codec;
+
+import java.io.IOException;
+import java.util.Locale;
+
+class FixedDecimal {
+    private final static long[] pow10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    static void format(double decimal, int width, int precision, Appendable sink) throws IOException {
+        long scaled = round(decimal, precision);
+        if (scaled < 0) {
+            sink.append(formatSlow(decimal, width, precision));
+            return;
+        }
+        // Layout is [sign][integer digits][.][fraction digits], and leading characters beyond width are cut.
+        boolean negative = isNegative(decimal);
+        long integer = scaled / pow10[precision];
+        long fraction = scaled % pow10[precision];
+        int signLength = negative ? 1 : 0;
+        int integerLength = CodecUtils.lengthOf(integer);
+        int dot = signLength + integerLength;
+        int begin = skipped(dot, width, precision);
+        if (begin < signLength) {
+            sink.append('-');
+        }
+        for (int index = Math.max(begin, signLength); index < dot; ++index) {
+            sink.append(digit(integer, integerLength - 1 - (index - signLength)));
+        }
+        if (precision > 0) {
+            sink.append('.');
+            for (int index = precision - 1; index >= 0; --index) {
+                sink.append(digit(fraction, index));
+            }
+        }
+    }
+
+    static int length(double decimal, int width, int precision) {
+        long scaled = round(decimal, precision);
+        if (scaled < 0) {
+            return formatSlow(decimal, width, precision).length();
+        }
+        int dot = (isNegative(decimal) ? 1 : 0) + CodecUtils.lengthOf(scaled / pow10[precision]);
+        return dot + (precision > 0 ? 1 + precision : 0) - skipped(dot, width, precision);
+    }
+
+    static String formatSlow(double decimal, int width, int precision) {
+        // Reference output, used where the fast path can't be sure to round the same way.
+        return trimWidth(String.format(Locale.ROOT, "%" + width + "." + precision + "f", decimal), width, precision);
+    }
+
+    private static String trimWidth(String encoded, int width, int precision) {
+        encoded = encoded.trim() /* Remove pre-padding blanks. */;
+        int dot = encoded.indexOf('.');
+        if (dot != -1 && dot > width - precision) {
+            return encoded.substring(dot - width + precision);
+        }
+        else {
+            return encoded;
+        }
+    }
+
+    private static int skipped(int dot, int width, int precision) {
+        // Same as trimWidth, only the last (width - precision) characters before the dot are kept.
+        return precision > 0 && dot > width - precision ? dot - width + precision : 0;
+    }
+
+    private static long round(double decimal, int precision) {
+        // Formatter rounds HALF_UP on the shortest decimal digits of the double. Away from a tie, rounding the
+        // scaled binary value gives the same result, within a tie margin the slow path decides. -1 if undecided.
+        if (precision >= pow10.length) {
+            return -1;
+        }
+        double scaled = Math.abs(decimal) * pow10[precision];
+        if (!(scaled < 0x1p52)) {
+            return -1;
+        }
+        double floor = Math.floor(scaled);
+        double fraction = scaled - floor;
+        if (Math.abs(fraction - 0.5) <= 4 * Math.ulp(scaled)) {
+            return -1;
+        }
+        return (long)floor + (fraction > 0.5 ? 1 : 0);
+    }
+
+    private static boolean isNegative(double decimal) {
+        // Formatter prints a sign for -0.0 too.
+        return Double.doubleToRawLongBits(decimal) < 0;
+    }
+
+    private static char digit(long value, int position) {
+        return (char)('0' + value / pow10[position] % 10);
+    }
+}
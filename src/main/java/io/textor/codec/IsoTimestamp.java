@@ -0,0 +1,277 @@
+package io.textor.codec;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+class IsoTimestamp {
+    private final static long daysFrom0000To1970 = 719528L;
+    private final static int[] nanoScales = {
+            100_000_000, 10_000_000, 1_000_000, 100_000, 10_000, 1_000, 100, 10, 1
+    };
+    private final static ZoneCache zones = new ZoneCache(256);
+
+    static void format(ZonedDateTime timestamp, Appendable sink) throws IOException {
+        // Same text as ISO_ZONED_DATE_TIME for years 0 to 9999, the formatter handles signed and wider years.
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            DateTimeFormatter.ISO_ZONED_DATE_TIME.formatTo(timestamp, sink);
+            return;
+        }
+        append(sink, year, 4);
+        sink.append('-');
+        append(sink, timestamp.getMonthValue(), 2);
+        sink.append('-');
+        append(sink, timestamp.getDayOfMonth(), 2);
+        sink.append('T');
+        append(sink, timestamp.getHour(), 2);
+        sink.append(':');
+        append(sink, timestamp.getMinute(), 2);
+        sink.append(':');
+        append(sink, timestamp.getSecond(), 2);
+        int nano = timestamp.getNano();
+        if (nano != 0) {
+            // Fraction digits without trailing zeros.
+            sink.append('.');
+            int digits = fractionDigits(nano);
+            for (int index = 0; index < digits; ++index) {
+                sink.append((char)('0' + nano / nanoScales[index] % 10));
+            }
+        }
+        int offset = timestamp.getOffset().getTotalSeconds();
+        if (offset == 0) {
+            sink.append('Z');
+        }
+        else {
+            int absolute = Math.abs(offset);
+            sink.append(offset < 0 ? '-' : '+');
+            append(sink, absolute / 3600, 2);
+            sink.append(':');
+            append(sink, absolute / 60 % 60, 2);
+            if (absolute % 60 != 0) {
+                sink.append(':');
+                append(sink, absolute % 60, 2);
+            }
+        }
+        ZoneId zone = timestamp.getZone();
+        if (!(zone instanceof ZoneOffset)) {
+            sink.append('[').append(zone.getId()).append(']');
+        }
+    }
+
+    static int length(ZonedDateTime timestamp) {
+        int year = timestamp.getYear();
+        if (year < 0 || year > 9999) {
+            return DateTimeFormatter.ISO_ZONED_DATE_TIME.format(timestamp).length();
+        }
+        int length = 19 /* yyyy-MM-ddTHH:mm:ss */;
+        if (timestamp.getNano() != 0) {
+            length += 1 + fractionDigits(timestamp.getNano());
+        }
+        int offset = timestamp.getOffset().getTotalSeconds();
+        length += offset == 0 ? 1 : offset % 60 != 0 ? 9 : 6;
+        ZoneId zone = timestamp.getZone();
+        if (!(zone instanceof ZoneOffset)) {
+            length += zone.getId().length() + 2;
+        }
+        return length;
+    }
+
+    static ZonedDateTime parse(CharSequence expr, int begin, int end) {
+        EpochTimestamp timestamp = new EpochTimestamp();
+        if (parseFast(expr, begin, end, timestamp)) {
+            return timestamp.toZonedDateTime();
+        }
+        return parseSlow(expr, begin, end);
+    }
+
+    static void parse(CharSequence expr, int begin, int end, EpochTimestamp timestamp) {
+        if (!parseFast(expr, begin, end, timestamp)) {
+            timestamp.set(parseSlow(expr, begin, end));
+        }
+    }
+
+    static ZonedDateTime parseSlow(CharSequence expr, int begin, int end) {
+        try {
+            return ZonedDateTime.parse(expr.subSequence(begin, end), DateTimeFormatter.ISO_ZONED_DATE_TIME);
+        }
+        catch (Exception exception) {
+            throw new IllegalArgumentException(exception.getMessage(), exception);
+        }
+    }
+
+    private static boolean parseFast(CharSequence expr, int begin, int end, EpochTimestamp timestamp) {
+        // Accepts only the canonical yyyy-MM-ddTHH:mm[:ss[.n]](Z|+HH:mm[:ss])[[zone]] with valid fields, and returns
+        // false for everything else so the formatter decides, either parsing it or raising its error.
+        int cur = begin;
+        if (end - cur < 17 || !at(expr, end, cur + 4, '-') || !at(expr, end, cur + 7, '-') || !at(expr, end, cur + 10, 'T') || !at(expr, end, cur + 13, ':')) {
+            return false;
+        }
+        int year = digits(expr, cur, 4);
+        int month = digits(expr, cur + 5, 2);
+        int day = digits(expr, cur + 8, 2);
+        int hour = digits(expr, cur + 11, 2);
+        int minute = digits(expr, cur + 14, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return false;
+        }
+        cur += 16;
+        int second = 0;
+        int nano = 0;
+        if (at(expr, end, cur, ':')) {
+            second = end - cur >= 3 ? digits(expr, cur + 1, 2) : -1;
+            if (second < 0 || second > 59) {
+                return false;
+            }
+            cur += 3;
+            if (at(expr, end, cur, '.')) {
+                int digits = 0;
+                while (++cur < end && CodecUtils.isNumber(expr.charAt(cur))) {
+                    if (++digits > 9) {
+                        return false;
+                    }
+                    nano += (expr.charAt(cur) - '0') * nanoScales[digits - 1];
+                }
+                if (digits == 0) {
+                    return false;
+                }
+            }
+        }
+        int offset;
+        if (at(expr, end, cur, 'Z')) {
+            offset = 0;
+            ++cur;
+        }
+        else if (at(expr, end, cur, '+') || at(expr, end, cur, '-')) {
+            int sign = expr.charAt(cur) == '-' ? -1 : 1;
+            int offsetHour = end - cur >= 6 && at(expr, end, cur + 3, ':') ? digits(expr, cur + 1, 2) : -1;
+            int offsetMinute = offsetHour < 0 ? -1 : digits(expr, cur + 4, 2);
+            int offsetSecond = 0;
+            cur += 6;
+            if (at(expr, end, cur, ':')) {
+                offsetSecond = end - cur >= 3 ? digits(expr, cur + 1, 2) : -1;
+                cur += 3;
+            }
+            if (offsetHour < 0 || offsetHour > 18 || offsetMinute < 0 || offsetMinute > 59 || offsetSecond < 0 || offsetSecond > 59) {
+                return false;
+            }
+            offset = sign * (offsetHour * 3600 + offsetMinute * 60 + offsetSecond);
+            if (Math.abs(offset) > 18 * 3600) {
+                return false;
+            }
+        }
+        else {
+            return false;
+        }
+        ZoneOffset zoneOffset = ZoneOffset.ofTotalSeconds(offset);
+        ZoneId zone = zoneOffset;
+        if (cur < end) {
+            if (!at(expr, end, cur, '[') || !at(expr, end, end - 1, ']') || end - cur < 3) {
+                return false;
+            }
+            zone = zones.get(expr, cur + 1, end - 1);
+            if (zone == null) {
+                // Unknown zone text is resolved once by the formatter, so the cache only holds what it accepts.
+                ZonedDateTime parsed = parseSlow(expr, begin, end);
+                zones.put(expr.subSequence(cur + 1, end - 1).toString(), parsed.getZone());
+                timestamp.set(parsed);
+                return true;
+            }
+        }
+        long epochDay = epochDay(year, month, day);
+        long epochSecond = epochDay * 86400L + hour * 3600L + minute * 60L + second - offset;
+        timestamp.set(epochSecond, nano, zoneOffset, zone);
+        return true;
+    }
+
+    private static boolean at(CharSequence expr, int end, int index, char c) {
+        return index < end && expr.charAt(index) == c;
+    }
+
+    private static int digits(CharSequence expr, int offset, int count) {
+        // Value of count decimal digits, or -1 if any of them is not a digit.
+        int value = 0;
+        for (int index = offset; index < offset + count; ++index) {
+            int digit = expr.charAt(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int fractionDigits(int nano) {
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            --digits;
+        }
+        return digits;
+    }
+
+    private static void append(Appendable sink, int value, int width) throws IOException {
+        for (int scale = width == 4 ? 1000 : 10; scale > 0; scale /= 10) {
+            sink.append((char)('0' + value / scale % 10));
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static long epochDay(int year, int month, int day) {
+        // Same as LocalDate.toEpochDay for non-negative years.
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367L * month - 362) / 12 + day - 1;
+        if (month > 2) {
+            total -= isLeapYear(year) ? 1 : 2;
+        }
+        return total - daysFrom0000To1970;
+    }
+
+    private static class ZoneCache {
+        private final Entry[] entries;
+        private final int mask;
+
+        ZoneCache(int capacity) {
+            entries = new Entry[capacity];
+            mask = capacity - 1;
+        }
+
+        ZoneId get(CharSequence expr, int begin, int end) {
+            int hash = 0;
+            for (int cur = begin; cur < end; ++cur) {
+                hash = 31 * hash + expr.charAt(cur);
+            }
+            Entry entry = entries[(hash ^ (hash >>> 16)) & mask];
+            if (entry == null || entry.hash != hash || entry.id.length() != end - begin) {
+                return null;
+            }
+            for (int cur = begin; cur < end; ++cur) {
+                if (entry.id.charAt(cur - begin) != expr.charAt(cur)) {
+                    return null;
+                }
+            }
+            return entry.zone;
+        }
+
+        void put(String id, ZoneId zone) {
+            int hash = id.hashCode();
+            entries[(hash ^ (hash >>> 16)) & mask] = new Entry(id, hash, zone);
+        }
+
+        private record Entry(String id, int hash, ZoneId zone) {
+        }
+    }
+}
@@ -2,24 +2,57 @@ package io.textor.codec;
 
 import io.textor.*;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 public class KeyUtils {
+    private final static DescriptorCache descriptors = new DescriptorCache(1024);
 
     public static String encodeKey(ColumnDescriptor columnDescriptor) {
+        return CodecUtils.encodeToString(sink -> encodeKey(columnDescriptor, sink));
+    }
+
+    public static <T extends Appendable> T encodeKey(ColumnDescriptor columnDescriptor, T sink) throws IOException {
         KeyDescriptor key = columnDescriptor.getKeyDescriptor();
         ValueDescriptor value = columnDescriptor.getValueDescriptor();
         validateKeyDescriptor(key);
         validateValueDescriptor(value);
-        return key.getType().getToken()  + key.getName() + "(" + encodeType(value) + ")";
+        sink.append(key.getType().getToken()).append(key.getName()).append('(');
+        encodeType(value, sink);
+        sink.append(')');
+        return sink;
     }
 
-    private static String encodeType(ValueDescriptor descriptor) {
-        return switch (descriptor.getType()) {
-            case ASCII, INTEGER, TIMESTAMP -> descriptor.getType().getToken();
-            case BINARY -> descriptor.getType().getToken() + ":" + descriptor.getBinarySize();
-            case DECIMAL -> descriptor.getType().getToken() + ":" + descriptor.getDecimalWidth() + "," + descriptor.getDecimalPrecision();
+    public static int encodedKeyLength(ColumnDescriptor columnDescriptor) {
+        KeyDescriptor key = columnDescriptor.getKeyDescriptor();
+        ValueDescriptor value = columnDescriptor.getValueDescriptor();
+        validateKeyDescriptor(key);
+        validateValueDescriptor(value);
+        int length = key.getType().getToken().length() + key.getName().length() + 2 + value.getType().getToken().length();
+        return switch (value.getType()) {
+            case ASCII, INTEGER, TIMESTAMP -> length;
+            case BINARY -> length + 1 + CodecUtils.lengthOf(value.getBinarySize());
+            case DECIMAL -> length + 2 + CodecUtils.lengthOf(value.getDecimalWidth()) + CodecUtils.lengthOf(value.getDecimalPrecision());
         };
     }
 
+    private static void encodeType(ValueDescriptor descriptor, Appendable sink) throws IOException {
+        sink.append(descriptor.getType().getToken());
+        switch (descriptor.getType()) {
+            case ASCII, INTEGER, TIMESTAMP -> {}
+            case BINARY -> {
+                sink.append(':');
+                CodecUtils.appendLong(sink, descriptor.getBinarySize());
+            }
+            case DECIMAL -> {
+                sink.append(':');
+                CodecUtils.appendLong(sink, descriptor.getDecimalWidth());
+                sink.append(',');
+                CodecUtils.appendLong(sink, descriptor.getDecimalPrecision());
+            }
+        }
+    }
+
     private static void validateKeyDescriptor(KeyDescriptor key) {
         if (key == null || key.getType() == null) {
             throw new IllegalArgumentException("Illegal key descriptor.");
@@ -51,13 +84,44 @@ public class KeyUtils {
         }
     }
 
-    public static ColumnDescriptor decodeKey(String expr, DecodingState state) {
+    public static ColumnDescriptor decodeKey(byte[] bytes, int offset, int length, DecodingState state) {
+        return decodeKey(new AsciiSequence(bytes, offset, length), state);
+    }
+
+    public static ColumnDescriptor decodeKey(ByteBuffer buffer, int offset, int length, DecodingState state) {
+        return decodeKey(new AsciiSequence(buffer, offset, length), state);
+    }
+
+    public static ColumnDescriptor decodeKey(CharSequence expr, DecodingState state) {
+        // Headers like '@TABLE(A)' repeat on every line, so a header seen before resolves to the shared descriptor.
+        CodecUtils.validateOffset(expr, state.getCursor());
+        int begin = state.getCursor();
+        int hash = 0;
+        int end = begin;
+        for (; end < expr.length(); ++end) {
+            char c = expr.charAt(end);
+            hash = 31 * hash + c;
+            if (c == ')') {
+                ++end;
+                ColumnDescriptor cached = descriptors.get(expr, begin, end, hash);
+                if (cached != null) {
+                    state.setCursor(end);
+                    return cached;
+                }
+                break;
+            }
+        }
+
         KeyDescriptor key = decodeKeyDescriptor(expr, state);
         ValueDescriptor value = decodeValueDescriptor(expr, state);
-        return new ColumnDescriptor(key, value);
+        ColumnDescriptor decoded = new ColumnDescriptor(key, value);
+        if (state.getCursor() == end) {
+            descriptors.put(expr.subSequence(begin, end).toString(), decoded);
+        }
+        return decoded;
     }
 
-    private static ValueDescriptor decodeValueDescriptor(String expr, DecodingState state) {
+    private static ValueDescriptor decodeValueDescriptor(CharSequence expr, DecodingState state) {
         ValueType type = decodeType(expr, state);
         int binarySize = 0, width = 0, precision = 0;
         switch (type) {
@@ -95,7 +159,7 @@ public class KeyUtils {
         return new ValueDescriptor(type, width, precision, binarySize);
     }
 
-    private static KeyDescriptor decodeKeyDescriptor(String expr, DecodingState state) {
+    private static KeyDescriptor decodeKeyDescriptor(CharSequence expr, DecodingState state) {
         CodecUtils.validateOffset(expr, state.getCursor());
         KeyType type;
         int first = state.getCursor();
@@ -109,7 +173,7 @@ public class KeyUtils {
         return new KeyDescriptor(decodeColumnName(expr, state), type);
     }
 
-    private static String decodeColumnName(String expr, DecodingState state) {
+    private static String decodeColumnName(CharSequence expr, DecodingState state) {
         String name = CodecUtils.consumeSkip(expr, '(', state, KeyUtils::isValidKeyCharacter);
         if (name.isBlank()) {
             throw new IllegalArgumentException("Blank key name is not allowed.");
@@ -121,7 +185,7 @@ public class KeyUtils {
         return name;
     }
 
-    private static ValueType decodeType(String expr, DecodingState state) {
+    private static ValueType decodeType(CharSequence expr, DecodingState state) {
         CodecUtils.validateOffset(expr, state.getCursor());
         int begin = state.getCursor();
         if (begin == expr.length() - 1) {
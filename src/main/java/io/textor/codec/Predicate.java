@@ -0,0 +1,219 @@
+package io.textor.codec;
+
+import io.textor.AsciiDictionary;
+import io.textor.ColumnDescriptor;
+import io.textor.DecodingState;
+import io.textor.KeyDescriptor;
+import io.textor.KeyType;
+import io.textor.ValueDescriptor;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * Condition on the value of one key, tested on the encoded value text. Key is a column name or an '@' prefixed
+ * attribute name. Numbers compare by value, ASCII strings by chars and timestamps by instant. A key missing from a
+ * row, or with an empty value, is null: only {@link #isNull(String)} holds for it.
+ */
+public class Predicate {
+    private enum Kind {
+        RANGE, PREFIX, NULL, NOT_NULL
+    }
+
+    private final String name;
+    private final KeyType type;
+    private final Kind kind;
+    // Bounds are Long, Double, String or Instant, and null for no bound.
+    private final Object lower;
+    private final boolean lowerInclusive;
+    private final Object upper;
+    private final boolean upperInclusive;
+
+    private Predicate(String key, Kind kind, Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+        Objects.requireNonNull(key);
+        String token = KeyType.ATTRIBUTE.getToken();
+        this.type = key.startsWith(token) ? KeyType.ATTRIBUTE : KeyType.COLUMN;
+        this.name = type == KeyType.ATTRIBUTE ? key.substring(token.length()) : key;
+        this.kind = kind;
+        this.lower = lower;
+        this.lowerInclusive = lowerInclusive;
+        this.upper = upper;
+        this.upperInclusive = upperInclusive;
+    }
+
+    public static Predicate equalTo(String key, Object value) {
+        Object literal = literal(Objects.requireNonNull(value));
+        return new Predicate(key, Kind.RANGE, literal, true, literal, true);
+    }
+
+    public static Predicate greaterThan(String key, Object value) {
+        return new Predicate(key, Kind.RANGE, literal(Objects.requireNonNull(value)), false, null, false);
+    }
+
+    public static Predicate atLeast(String key, Object value) {
+        return new Predicate(key, Kind.RANGE, literal(Objects.requireNonNull(value)), true, null, false);
+    }
+
+    public static Predicate lessThan(String key, Object value) {
+        return new Predicate(key, Kind.RANGE, null, false, literal(Objects.requireNonNull(value)), false);
+    }
+
+    public static Predicate atMost(String key, Object value) {
+        return new Predicate(key, Kind.RANGE, null, false, literal(Objects.requireNonNull(value)), true);
+    }
+
+    public static Predicate between(String key, Object lower, Object upper) {
+        // Half-open [lower, upper).
+        return new Predicate(key, Kind.RANGE, literal(Objects.requireNonNull(lower)), true, literal(Objects.requireNonNull(upper)), false);
+    }
+
+    public static Predicate prefix(String key, String prefix) {
+        return new Predicate(key, Kind.PREFIX, Objects.requireNonNull(prefix), true, null, false);
+    }
+
+    public static Predicate isNull(String key) {
+        return new Predicate(key, Kind.NULL, null, false, null, false);
+    }
+
+    public static Predicate isNotNull(String key) {
+        return new Predicate(key, Kind.NOT_NULL, null, false, null, false);
+    }
+
+    private static Object literal(Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number)value).longValue();
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return ((Number)value).doubleValue();
+        }
+        if (value instanceof String || value instanceof Instant) {
+            return value;
+        }
+        if (value instanceof ZonedDateTime timestamp) {
+            return timestamp.toInstant();
+        }
+        throw new IllegalArgumentException("Unsupported predicate value " + value.getClass().getTypeName() + ".");
+    }
+
+    boolean appliesTo(ColumnDescriptor descriptor) {
+        KeyDescriptor key = descriptor.getKeyDescriptor();
+        return key.getType() == type && key.getName().equals(name);
+    }
+
+    boolean testAbsent() {
+        return kind == Kind.NULL;
+    }
+
+    boolean test(CharSequence expr, int begin, int end, ValueDescriptor value, AsciiDictionary dictionary) {
+        // Value text is [begin, end) without the trailing comma.
+        boolean isNull = begin >= end;
+        switch (kind) {
+            case NULL -> {
+                return isNull;
+            }
+            case NOT_NULL -> {
+                return !isNull;
+            }
+            default -> {
+                if (isNull) {
+                    return false;
+                }
+            }
+        }
+        return switch (value.getType()) {
+            case INTEGER -> {
+                long decoded = Long.parseLong(expr, begin, end, 10);
+                yield inRange(bound -> bound instanceof Long literal ? Long.compare(decoded, literal) : Double.compare(decoded, asDouble(bound)));
+            }
+            case DECIMAL -> {
+                double decoded = ValueUtils.Decimal.decodeDouble(expr, value.getDecimalWidth(), value.getDecimalPrecision(), new DecodingState(begin));
+                yield inRange(bound -> Double.compare(decoded, asDouble(bound)));
+            }
+            case ASCII -> {
+                if (expr.charAt(begin) == ValueUtils.dictionaryToken) {
+                    // A dictionary id is compared as the value it stands for.
+                    String decoded = ValueUtils.ASCII.decode(expr, new DecodingState(begin, dictionary));
+                    yield kind == Kind.PREFIX ? decoded.startsWith((String)lower) : inRange(bound -> decoded.compareTo(asString(bound)));
+                }
+                if (kind == Kind.PREFIX) {
+                    yield compareAscii(expr, begin, end, (String)lower, true) == 0;
+                }
+                yield inRange(bound -> compareAscii(expr, begin, end, asString(bound), false));
+            }
+            case TIMESTAMP -> {
+                EpochTimestamp decoded = ValueUtils.Timestamp.decodeEpoch(expr, new EpochTimestamp(), new DecodingState(begin));
+                yield inRange(bound -> compareInstant(decoded, bound));
+            }
+            case BINARY -> throw new IllegalArgumentException("BINARY value only supports null predicates.");
+        };
+    }
+
+    private boolean inRange(Comparison comparison) {
+        if (kind != Kind.RANGE) {
+            throw new IllegalArgumentException("Prefix predicate applies to ASCII only.");
+        }
+        if (lower != null) {
+            int compared = comparison.compareTo(lower);
+            if (compared < 0 || (compared == 0 && !lowerInclusive)) {
+                return false;
+            }
+        }
+        if (upper != null) {
+            int compared = comparison.compareTo(upper);
+            return compared < 0 || (compared == 0 && upperInclusive);
+        }
+        return true;
+    }
+
+    private static double asDouble(Object bound) {
+        if (bound instanceof Number number) {
+            return number.doubleValue();
+        }
+        throw new IllegalArgumentException("Number value can't compare to " + bound.getClass().getTypeName() + ".");
+    }
+
+    private static String asString(Object bound) {
+        if (bound instanceof String string) {
+            return string;
+        }
+        throw new IllegalArgumentException("ASCII value can't compare to " + bound.getClass().getTypeName() + ".");
+    }
+
+    private static int compareInstant(EpochTimestamp decoded, Object bound) {
+        if (!(bound instanceof Instant instant)) {
+            throw new IllegalArgumentException("TIMESTAMP value can't compare to " + bound.getClass().getTypeName() + ".");
+        }
+        int compared = Long.compare(decoded.getEpochSecond(), instant.getEpochSecond());
+        return compared != 0 ? compared : Integer.compare(decoded.getNano(), instant.getNano());
+    }
+
+    private static int compareAscii(CharSequence expr, int begin, int end, String literal, boolean prefixOnly) {
+        // Compares the quoted and escaped text in [begin, end) with literal as String.compareTo does, unescaping on
+        // the fly. With prefixOnly, 0 means the text starts with literal.
+        if (end - begin < 2 || expr.charAt(begin) != '"' || expr.charAt(end - 1) != '"') {
+            throw new IllegalArgumentException("Malformed ASCII string.");
+        }
+        int cur = begin + 1;
+        int last = end - 1;
+        int index = 0;
+        for (; cur < last && index < literal.length(); ++cur, ++index) {
+            char c = expr.charAt(cur);
+            if (c == '\\') {
+                c = expr.charAt(++cur);
+            }
+            if (c != literal.charAt(index)) {
+                return c - literal.charAt(index);
+            }
+        }
+        if (index < literal.length()) {
+            return -1;
+        }
+        return prefixOnly || cur == last ? 0 : 1;
+    }
+
+    @FunctionalInterface
+    private interface Comparison {
+        int compareTo(Object bound);
+    }
+}
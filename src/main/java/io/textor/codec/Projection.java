@@ -0,0 +1,62 @@
+package io.textor.codec;
+
+import io.textor.ColumnDescriptor;
+import io.textor.KeyDescriptor;
+import io.textor.KeyType;
+import io.textor.Schema;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keys to decode, and values of other keys are skipped. A key is a column name, or an attribute name prefixed with
+ * '@' the way attributes are encoded.
+ */
+public class Projection {
+    private final Set<String> columns = new HashSet<>();
+    private final Set<String> attributes = new HashSet<>();
+    // Which schema positions are projected, for the last schema this projection was applied to.
+    private volatile SchemaMask mask;
+
+    public Projection(String... keys) {
+        this(Arrays.asList(keys));
+    }
+
+    public Projection(Collection<String> keys) {
+        for (String key : keys) {
+            Objects.requireNonNull(key);
+            String token = KeyType.ATTRIBUTE.getToken();
+            if (key.startsWith(token)) {
+                attributes.add(key.substring(token.length()));
+            }
+            else {
+                columns.add(key);
+            }
+        }
+    }
+
+    public boolean includes(ColumnDescriptor descriptor) {
+        KeyDescriptor key = descriptor.getKeyDescriptor();
+        return (key.getType() == KeyType.ATTRIBUTE ? attributes : columns).contains(key.getName());
+    }
+
+    boolean[] includes(Schema schema) {
+        SchemaMask last = mask;
+        if (last != null && last.schema == schema) {
+            return last.included;
+        }
+        int attrCount = schema.getAttributeCount();
+        boolean[] included = new boolean[attrCount + schema.getColumnCount()];
+        for (int cur = 0; cur < included.length; ++cur) {
+            included[cur] = includes(cur < attrCount ? schema.getAttribute(cur) : schema.getColumn(cur - attrCount));
+        }
+        mask = new SchemaMask(schema, included);
+        return included;
+    }
+
+    private record SchemaMask(Schema schema, boolean[] included) {
+    }
+}
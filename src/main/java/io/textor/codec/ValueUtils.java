@@ -1,9 +1,11 @@
 package io.textor.codec;
 
+import io.textor.AsciiDictionary;
 import io.textor.DecodingState;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
 
 public class ValueUtils {
@@ -18,53 +20,79 @@ public class ValueUtils {
             'u', 'v', 'w', 'x', 'y', 'z', '`', '^'
     };
 
-    private final static byte[] decodes = {
-            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07,
-            0x08, 0x09, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
-            0x00, 0x0A, 0x0B, 0x0C, 0x0D, 0x0E, 0x0F, 0x10,
-            0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18,
-            0x19, 0x1A, 0x1B, 0x1C, 0x1D, 0x1E, 0x1F, 0x20,
-            0x21, 0x22, 0x23, 0x00, 0x00, 0x00, 0x3F, 0x00,
-            0x3E, 0x24, 0x25, 0x26, 0x27, 0x28, 0x29, 0x2A,
-            0x2B, 0x2C, 0x2D, 0x2E, 0x2F, 0x30, 0x31, 0x32,
-            0x33, 0x34, 0x35, 0x36, 0x37, 0x38, 0x39, 0x3A,
-            0x3B, 0x3C, 0x3D,
-    };
+    // Starts an ASCII value written as a dictionary id, and a dictionary line.
+    final static char dictionaryToken = '$';
+
+    // Reverse of codes, -1 marks a character that is not a binary code.
+    private final static byte[] decodes = new byte[128];
+
+    static {
+        Arrays.fill(decodes, (byte)-1);
+        for (int index = 0; index < codes.length; ++index) {
+            decodes[codes[index]] = (byte)index;
+        }
+    }
 
     public static class Binary {
         public static String encode(byte[] binary, int offset, int length)  {
-            // 3 bytes to 4 letters.
-            if (offset < 0 || length < 0) {
-                throw new IllegalArgumentException("Illegal offset and length.");
+            validateRange(binary, offset, length);
+            char[] encoded = new char[encodedLength(binary, length)];
+            if (encoded.length > 0) {
+                int end = offset + length;
+                int cur = offset;
+                int encodeCur = 0;
+                for (; cur + 3 <= end; cur += 3, encodeCur += 4) {
+                    encode3Bytes(group(binary, cur, 3), encoded, encodeCur);
+                }
+                if (cur < end) {
+                    encode3Bytes(group(binary, cur, end - cur), encoded, encodeCur);
+                }
             }
+            return new String(encoded);
+        }
+
+        public static <T extends Appendable> T encode(byte[] binary, int offset, int length, T sink) throws IOException {
+            // 3 bytes to 4 letters.
+            validateRange(binary, offset, length);
             if (binary == null || length == 0) {
-                return "";
+                return sink;
             }
             int end = offset + length;
-            if (binary.length < end) {
-                throw new IllegalArgumentException("Offset + length overflow.");
-            }
-            StringBuilder encoded = new StringBuilder();
-            int cur = 0;
+            int cur = offset;
             for (; cur + 3 <= end; cur += 3) {
-                encoded.append(encode3Bytes(binary[cur], binary[cur + 1], binary[cur + 2]));
+                encode3Bytes(group(binary, cur, 3), sink);
             }
-            if (end - cur == 1) {
-                encoded.append(encode3Bytes(binary[cur], (byte)0x00, (byte)0x00));
+            if (cur < end) {
+                encode3Bytes(group(binary, cur, end - cur), sink);
+            }
+            return sink;
+        }
+
+        public static int encodedLength(byte[] binary, int length) {
+            if (binary == null || length <= 0) {
+                return 0;
+            }
+            return (length / 3 + (length % 3 != 0 ? 1 : 0)) * 4;
+        }
+
+        private static void validateRange(byte[] binary, int offset, int length) {
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException("Illegal offset and length.");
             }
-            else if (end - cur == 2) {
-                encoded.append(encode3Bytes(binary[cur], binary[cur + 1], (byte)0x00));
+            if (binary != null && length != 0 && binary.length < offset + length) {
+                throw new IllegalArgumentException("Offset + length overflow.");
             }
-            return encoded.toString();
         }
 
-        public static byte[] decode(String expr, int binarySize, DecodingState state) {
+        public static byte[] decode(byte[] bytes, int offset, int length, int binarySize, DecodingState state) {
+            return decode(new AsciiSequence(bytes, offset, length), binarySize, state);
+        }
+
+        public static byte[] decode(ByteBuffer buffer, int offset, int length, int binarySize, DecodingState state) {
+            return decode(new AsciiSequence(buffer, offset, length), binarySize, state);
+        }
+
+        public static byte[] decode(CharSequence expr, int binarySize, DecodingState state) {
             // 4 letters to 3 bytes.
             CodecUtils.validateOffset(expr, state.getCursor());
             if (binarySize < 0) {
@@ -91,89 +119,179 @@ public class ValueUtils {
                 }
             }
 
-            byte[] decoded = new byte[totalSize];
+            // Decode straight into the result, the last group may carry up to 2 padding bytes that are dropped.
+            byte[] decoded = new byte[binarySize];
             int decodeCur = 0;
             int cur = state.getCursor();
-            for (; cur + 4 <= end; cur += 4, decodeCur += 3) {
-                byte[] decodeBytes;
-                char[] chars = new char[] {expr.charAt(cur), expr.charAt(cur + 1), expr.charAt(cur + 2), expr.charAt(cur + 3)};
-                try {
-                     decodeBytes = decode4Letters(chars[0], chars[1], chars[2], chars[3]);
-                }
-                catch (IllegalArgumentException exception) {
-                    throw new IllegalArgumentException("Illegal binary code at index " + cur + ", [" + String.copyValueOf(chars) + "].");
+            for (; decodeCur + 3 <= binarySize; cur += 4, decodeCur += 3) {
+                int bits = decode4Letters(expr, cur);
+                decoded[decodeCur] = (byte)bits;
+                decoded[decodeCur + 1] = (byte)(bits >>> 8);
+                decoded[decodeCur + 2] = (byte)(bits >>> 16);
+            }
+            if (decodeCur < binarySize) {
+                int bits = decode4Letters(expr, cur);
+                for (int shift = 0; decodeCur < binarySize; ++decodeCur, shift += 8) {
+                    decoded[decodeCur] = (byte)(bits >>> shift);
                 }
-
-                decoded[decodeCur] = decodeBytes[0];
-                decoded[decodeCur + 1] = decodeBytes[1];
-                decoded[decodeCur + 2] = decodeBytes[2];
+                cur += 4;
             }
 
             state.setCursor(CodecUtils.moveAfter(expr, cur, ','));
-            return Arrays.copyOf(decoded, binarySize);
+            return decoded;
         }
 
-        private static String encode3Bytes(byte b0, byte b1, byte b2) {
-            char[] c = new char[4];
-            c[0] = codes[  b0 & 0b00111111];
-            c[1] = codes[((b0 & 0b11000000) >>> 6) | ((b1 & 0b00001111) << 2)];
-            c[2] = codes[((b1 & 0b11110000) >>> 4) | ((b2 & 0b00000011) << 4)];
-            c[3] = codes[ (b2 & 0b11111100) >>> 2];
-            return String.copyValueOf(c);
+        private static int group(byte[] binary, int offset, int count) {
+            // Up to 3 bytes as a little-endian 24-bit group, missing bytes are zeros.
+            int bits = binary[offset] & 0xFF;
+            if (count > 1) {
+                bits |= (binary[offset + 1] & 0xFF) << 8;
+            }
+            if (count > 2) {
+                bits |= (binary[offset + 2] & 0xFF) << 16;
+            }
+            return bits;
         }
 
-        private static byte[] decode4Letters(char c0, char c1, char c2, char c3) {
-            if (!areValidBinaryCodes(c0, c1, c2, c3)) {
-                throw new IllegalArgumentException("Invalid character is found in binary encodes.");
-            }
-            byte[] dc = new byte[3];
-            dc[0] = (byte)(((decodes[c1] & 0b00000011) << 6) | (decodes[c0] & 0b00111111));
-            dc[1] = (byte)(((decodes[c2] & 0b00001111) << 4) | ((decodes[c1] & 0b00111100) >> 2));
-            dc[2] = (byte)(((decodes[c3] & 0b00111111) << 2) | ((decodes[c2] & 0b00110000) >> 4));
-            return dc;
+        private static void encode3Bytes(int bits, char[] encoded, int offset) {
+            encoded[offset] = codes[bits & 0b00111111];
+            encoded[offset + 1] = codes[(bits >>> 6) & 0b00111111];
+            encoded[offset + 2] = codes[(bits >>> 12) & 0b00111111];
+            encoded[offset + 3] = codes[(bits >>> 18) & 0b00111111];
         }
 
-        private static boolean areValidBinaryCodes(char... chars) {
-            for(char c : chars) {
-                if (!isValidBinaryCode(c)) {
-                    return false;
-                }
-            }
-            return true;
+        private static void encode3Bytes(int bits, Appendable sink) throws IOException {
+            sink.append(codes[bits & 0b00111111]);
+            sink.append(codes[(bits >>> 6) & 0b00111111]);
+            sink.append(codes[(bits >>> 12) & 0b00111111]);
+            sink.append(codes[(bits >>> 18) & 0b00111111]);
+        }
+
+        private static int decode4Letters(CharSequence expr, int offset) {
+            char c0 = expr.charAt(offset), c1 = expr.charAt(offset + 1), c2 = expr.charAt(offset + 2), c3 = expr.charAt(offset + 3);
+            // Characters beyond the table map to -1 too, so a negative OR means at least one illegal code.
+            int d0 = c0 < 128 ? decodes[c0] : -1;
+            int d1 = c1 < 128 ? decodes[c1] : -1;
+            int d2 = c2 < 128 ? decodes[c2] : -1;
+            int d3 = c3 < 128 ? decodes[c3] : -1;
+            if ((d0 | d1 | d2 | d3) < 0) {
+                throw new IllegalArgumentException("Illegal binary code at index " + offset + ", [" + c0 + c1 + c2 + c3 + "].");
+            }
+            return d0 | (d1 << 6) | (d2 << 12) | (d3 << 18);
         }
 
-        private static boolean isValidBinaryCode(char c) {
-            return CodecUtils.isNumber(c) || CodecUtils.isLowerLetter(c) || CodecUtils.isUpperLetter(c) || c == '`' || c == '^';
+        public static void skip(CharSequence expr, int binarySize, DecodingState state) {
+            // Jumps over the codes by their length known from the size.
+            CodecUtils.validateOffset(expr, state.getCursor());
+            if (binarySize < 0) {
+                throw new IllegalArgumentException("Illegal binary size: " + binarySize +".");
+            }
+            int totalSize = (binarySize / 3 + (binarySize % 3 != 0 ? 1 : 0)) * 4;
+            int end = state.getCursor() + totalSize;
+            if (end > expr.length()) {
+                throw new IllegalArgumentException("Insufficient codes to parse binary of the given size.");
+            }
+            if (end < expr.length() && expr.charAt(end) != ',') {
+                throw new IllegalArgumentException("Expect ',' at index " + end + " but find '" + expr.charAt(end) + "'.");
+            }
+            state.setCursor(CodecUtils.moveAfter(expr, end, ','));
         }
     }
 
     public static class Decimal {
+        private final static long maxExactLong = 1L << 53;
+        private final static double[] exactPowers = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
         public static String encode(Double decimal, int width, int precision) {
             if (decimal == null) {
                 return "";
             }
-            if (width < 0 || precision < 0) {
+            return CodecUtils.encodeToString(sink -> encode(decimal, width, precision, sink));
+        }
+
+        public static <T extends Appendable> T encode(Double decimal, int width, int precision, T sink) throws IOException {
+            if (decimal == null) {
+                return sink;
+            }
+            return encode(decimal.doubleValue(), width, precision, sink);
+        }
+
+        public static <T extends Appendable> T encode(double decimal, int width, int precision, T sink) throws IOException {
+            validateParameters(width, precision);
+            FixedDecimal.format(decimal, width, precision, sink);
+            return sink;
+        }
+
+        public static int encodedLength(Double decimal, int width, int precision) {
+            if (decimal == null) {
+                return 0;
+            }
+            return encodedLength(decimal.doubleValue(), width, precision);
+        }
+
+        public static int encodedLength(double decimal, int width, int precision) {
+            validateParameters(width, precision);
+            return FixedDecimal.length(decimal, width, precision);
+        }
+
+        private static void validateParameters(int width, int precision) {
+            if (width <= 0 || precision < 0) {
                 throw new IllegalArgumentException("Illegal decimal parameters (" + width + "," + precision + ").");
             }
             if (width < precision) {
                 throw new IllegalArgumentException("Invalid decimal parameters (" + width + "," + precision + ").");
             }
+        }
 
-            return trimWidth(String.format("%" + width + "." + precision + "f", decimal), width, precision);
+        public static Double decode(byte[] bytes, int offset, int length, int width, int precision, DecodingState state) {
+            return decode(new AsciiSequence(bytes, offset, length), width, precision, state);
         }
 
-        private static String trimWidth(String encoded, int width, int precision) {
-            encoded = encoded.trim() /* Remove pre-padding blanks. */;
-            int dot = encoded.indexOf('.');
-            if (dot != -1 && dot > width - precision) {
-                return encoded.substring(dot - width + precision);
+        public static Double decode(ByteBuffer buffer, int offset, int length, int width, int precision, DecodingState state) {
+            return decode(new AsciiSequence(buffer, offset, length), width, precision, state);
+        }
+
+        public static Double decode(CharSequence expr, int width, int precision, DecodingState state) {
+            return decodeDouble(expr, width, precision, state);
+        }
+
+        public static double decodeDouble(CharSequence expr, int width, int precision, DecodingState state) {
+            int begin = state.getCursor();
+            long scaled = scan(expr, width, precision, state);
+            // Both operands are exact doubles, so the single division is correctly rounded as parseDouble.
+            if (scaled >= 0 && scaled <= maxExactLong && precision < exactPowers.length) {
+                return scaled / exactPowers[precision];
             }
-            else {
-                return encoded;
+            int end = state.getCursor() == -1 ? expr.length() : state.getCursor() - 1;
+            try {
+                return Double.parseDouble(expr.subSequence(begin, end).toString());
+            }catch (Exception exception) {
+                throw new IllegalArgumentException(exception.getMessage(), exception);
             }
         }
 
-        public static Double decode(String expr, int width, int precision, DecodingState state) {
+        public static long decodeScaled(byte[] bytes, int offset, int length, int width, int precision, DecodingState state) {
+            return decodeScaled(new AsciiSequence(bytes, offset, length), width, precision, state);
+        }
+
+        public static long decodeScaled(ByteBuffer buffer, int offset, int length, int width, int precision, DecodingState state) {
+            return decodeScaled(new AsciiSequence(buffer, offset, length), width, precision, state);
+        }
+
+        public static long decodeScaled(CharSequence expr, int width, int precision, DecodingState state) {
+            // Unscaled value at the column's precision, e.g. 12.3 in (D:6,2) is 1230.
+            long scaled = scan(expr, width, precision, state);
+            if (scaled < 0) {
+                throw new IllegalArgumentException("Decimal overflows long at precision " + precision + ".");
+            }
+            return scaled;
+        }
+
+        private static long scan(CharSequence expr, int width, int precision, DecodingState state) {
+            // Validate and accumulate digits in one pass, returns -1 if the scaled value overflows long.
             CodecUtils.validateOffset(expr, state.getCursor());
             if (width <= 0 || precision < 0) {
                 throw new IllegalArgumentException("Illegal decimal parameters: " + width + ", " + precision + ".");
@@ -182,46 +300,54 @@ public class ValueUtils {
                 throw new IllegalArgumentException("Invalid decimal parameters (" + width + "," + precision + ").");
             }
 
+            long scaled = 0;
+            boolean overflow = false;
             int intEnd = -1;
-            int fractionEnd = -1;
             int begin = state.getCursor();
             int cur = begin;
             for (; cur < expr.length(); ++cur) {
                 char c = expr.charAt(cur);
-                if (intEnd == -1) {
-                    if (c == '.') {
-                        intEnd = cur;
-                    } else if (!CodecUtils.isNumber(c)) {
-                        throw new IllegalArgumentException("Illegal character '" + c + "' at index " + cur + ".");
-                    }
-                } else {
-                    if (c == ',') {
-                        fractionEnd = cur;
-                        break;
-                    } else if (!CodecUtils.isNumber(c)) {
-                        throw new IllegalArgumentException("Illegal character '" + c + "' at index " + cur + ".");
-                    }
+                if (intEnd == -1 && c == '.') {
+                    intEnd = cur;
+                    continue;
                 }
-
+                if (intEnd != -1 && c == ',') {
+                    break;
+                }
+                if (!CodecUtils.isNumber(c)) {
+                    throw new IllegalArgumentException("Illegal character '" + c + "' at index " + cur + ".");
+                }
+                int digit = c - '0';
+                overflow = overflow || (scaled >= Long.MAX_VALUE / 10 && (scaled > Long.MAX_VALUE / 10 || digit > 7));
+                scaled = scaled * 10 + digit;
             }
 
-            if (cur == expr.length()) {
-                fractionEnd = cur;
+            if (intEnd == -1) {
+                throw new IllegalArgumentException("Missing '.' in decimal.");
             }
-
             if (intEnd - begin > width - precision) {
                 throw new IllegalArgumentException("Integer overflow.");
             }
-            if (fractionEnd - intEnd - 1 > precision) {
+            int fractionDigits = cur - intEnd - 1;
+            if (fractionDigits > precision) {
                 throw new IllegalArgumentException("Fraction overflow.");
             }
+            if (cur - begin == 1) {
+                throw new IllegalArgumentException("Missing digits in decimal.");
+            }
 
             state.setCursor(CodecUtils.moveAfter(expr, cur, ','));
-            try {
-                return Double.parseDouble(expr.substring(begin, intEnd) + "." + expr.substring(intEnd + 1, fractionEnd));
-            }catch (Exception exception) {
-                throw new IllegalArgumentException(exception.getMessage(), exception);
+            for (int n = fractionDigits; n < precision && !overflow; ++n) {
+                overflow = scaled > Long.MAX_VALUE / 10;
+                scaled *= 10;
             }
+            return overflow ? -1 : scaled;
+        }
+
+        public static void skip(CharSequence expr, DecodingState state) {
+            // Moves past the value without checking or decoding it.
+            CodecUtils.validateOffset(expr, state.getCursor());
+            state.setCursor(CodecUtils.moveAfter(expr, state.getCursor(), ','));
         }
     }
 
@@ -233,10 +359,44 @@ public class ValueUtils {
             return Long.toString(integer);
         }
 
-        public static Long decode(String expr, DecodingState state) {
+        public static <T extends Appendable> T encode(Long integer, T sink) throws IOException {
+            if (integer != null) {
+                CodecUtils.appendLong(sink, integer);
+            }
+            return sink;
+        }
+
+        public static <T extends Appendable> T encode(long integer, T sink) throws IOException {
+            CodecUtils.appendLong(sink, integer);
+            return sink;
+        }
+
+        public static int encodedLength(Long integer) {
+            return integer == null ? 0 : CodecUtils.lengthOf(integer);
+        }
+
+        public static int encodedLength(long integer) {
+            return CodecUtils.lengthOf(integer);
+        }
+
+        public static Long decode(byte[] bytes, int offset, int length, DecodingState state) {
+            return decode(new AsciiSequence(bytes, offset, length), state);
+        }
+
+        public static Long decode(ByteBuffer buffer, int offset, int length, DecodingState state) {
+            return decode(new AsciiSequence(buffer, offset, length), state);
+        }
+
+        public static Long decode(CharSequence expr, DecodingState state) {
+            return decodeLong(expr, state);
+        }
+
+        public static long decodeLong(CharSequence expr, DecodingState state) {
             CodecUtils.validateOffset(expr, state.getCursor());
             try {
-                return Long.parseLong(CodecUtils.consumeSkip(expr, ',', state, Integer::isValidNumber));
+                int begin = state.getCursor();
+                int end = CodecUtils.skipTo(expr, ',', state, Integer::isValidNumber);
+                return Long.parseLong(expr, begin, end, 10);
             } catch (Exception exception) {
                 throw new IllegalArgumentException(exception.getMessage(), exception);
             }
@@ -245,11 +405,21 @@ public class ValueUtils {
         private static boolean isValidNumber(char c) {
             return CodecUtils.isNumber(c) || c == '-' || c == '+';
         }
+
+        public static void skip(CharSequence expr, DecodingState state) {
+            // Moves past the value without checking or decoding it.
+            CodecUtils.validateOffset(expr, state.getCursor());
+            state.setCursor(CodecUtils.moveAfter(expr, state.getCursor(), ','));
+        }
     }
 
     public static class ASCII {
         public static String encode(String ascii) {
-            StringBuilder encoded = new StringBuilder();
+            return CodecUtils.encodeToString(sink -> encode(ascii, sink));
+        }
+
+        public static <T extends Appendable> T encode(String ascii, T sink) throws IOException {
+            sink.append('"');
             if (ascii != null && ascii.length() > 0) {
                 int cur = 0;
                 for (; cur < ascii.length(); ++cur) {
@@ -257,23 +427,43 @@ public class ValueUtils {
                     if (!isValidAscii(c)) {
                         throw new IllegalArgumentException("Non-ASCII character '" + c + "' is no allowed.");
                     }
-                    if (c == '"') {
-                        encoded.append("\\\"");
-                    }
-                    else if (c == '\\') {
-                        encoded.append("\\\\");
+                    if (c == '"' || c == '\\') {
+                        sink.append('\\');
                     }
-                    else {
-                        encoded.append(c);
+                    sink.append(c);
+                }
+            }
+            sink.append('"');
+            return sink;
+        }
+
+        public static int encodedLength(String ascii) {
+            int length = 2;
+            if (ascii != null) {
+                length += ascii.length();
+                for (int cur = 0; cur < ascii.length(); ++cur) {
+                    char c = ascii.charAt(cur);
+                    if (c == '"' || c == '\\') {
+                        ++length;
                     }
                 }
             }
-            return "\"" + encoded + "\"";
+            return length;
+        }
+
+        public static String decode(byte[] bytes, int offset, int length, DecodingState state) {
+            return decode(new AsciiSequence(bytes, offset, length), state);
         }
 
+        public static String decode(ByteBuffer buffer, int offset, int length, DecodingState state) {
+            return decode(new AsciiSequence(buffer, offset, length), state);
+        }
 
-        public static String decode(String expr, DecodingState state) {
+        public static String decode(CharSequence expr, DecodingState state) {
             CodecUtils.validateOffset(expr, state.getCursor());
+            if (state.getCursor() < expr.length() && expr.charAt(state.getCursor()) == dictionaryToken) {
+                return decodeReference(expr, state);
+            }
             StringBuilder decoded = new StringBuilder();
             boolean isBegun = false;
             boolean isFinished = false;
@@ -324,6 +514,57 @@ public class ValueUtils {
             state.setCursor(CodecUtils.moveAfter(expr, cur, ','));
             return decoded.toString();
         }
+
+        public static void skip(CharSequence expr, DecodingState state) {
+            // Finds the closing quote past escapes without building the string.
+            CodecUtils.validateOffset(expr, state.getCursor());
+            int cur = state.getCursor();
+            if (cur < expr.length() && expr.charAt(cur) == dictionaryToken) {
+                state.setCursor(CodecUtils.moveAfter(expr, cur, ','));
+                return;
+            }
+            if (expr.charAt(cur) != '"') {
+                throw new IllegalArgumentException("Expect '\"' but find '" + expr.charAt(cur) + "'.");
+            }
+            for (++cur; cur < expr.length(); ++cur) {
+                char c = expr.charAt(cur);
+                if (c == '\\') {
+                    ++cur;
+                }
+                else if (c == '"') {
+                    break;
+                }
+            }
+            if (cur >= expr.length()) {
+                throw new IllegalArgumentException("Incomplete ASCII string.");
+            }
+            if (cur < expr.length() - 1 && expr.charAt(cur + 1) != ',') {
+                throw new IllegalArgumentException("Unexpected character '" + expr.charAt(cur + 1) + "' after end of ASCII string.");
+            }
+            state.setCursor(CodecUtils.moveAfter(expr, cur, ','));
+        }
+        private static String decodeReference(CharSequence expr, DecodingState state) {
+            // $id up to the next ',' or the end, resolved with the dictionary of state.
+            AsciiDictionary dictionary = state.getDictionary();
+            if (dictionary == null) {
+                throw new IllegalArgumentException("Dictionary reference without a dictionary.");
+            }
+            int cur = state.getCursor() + 1;
+            int begin = cur;
+            long id = 0;
+            for (; cur < expr.length() && expr.charAt(cur) != ','; ++cur) {
+                char c = expr.charAt(cur);
+                if (c < '0' || c > '9' || id > java.lang.Integer.MAX_VALUE / 10) {
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' in dictionary reference.");
+                }
+                id = id * 10 + (c - '0');
+            }
+            if (cur == begin) {
+                throw new IllegalArgumentException("Empty dictionary reference.");
+            }
+            state.setCursor(CodecUtils.moveAfter(expr, cur, ','));
+            return dictionary.get((int)id);
+        }
     }
 
     private static boolean isValidAscii(char c) {
@@ -335,20 +576,58 @@ public class ValueUtils {
             if (timestamp == null) {
                 return "";
             }
-            return timestamp.format(DateTimeFormatter.ISO_ZONED_DATE_TIME);
+            return CodecUtils.encodeToString(sink -> IsoTimestamp.format(timestamp, sink));
         }
 
-        public static ZonedDateTime decode(String expr, DecodingState state) {
-            CodecUtils.validateOffset(expr, state.getCursor());
-            try {
-                return ZonedDateTime.parse(CodecUtils.consumeSkip(expr, ',', state, Timestamp::isValidTimestampCharacter), DateTimeFormatter.ISO_ZONED_DATE_TIME);
-            }catch (Exception exception) {
-                throw new IllegalArgumentException(exception.getMessage(), exception);
+        public static <T extends Appendable> T encode(ZonedDateTime timestamp, T sink) throws IOException {
+            if (timestamp != null) {
+                IsoTimestamp.format(timestamp, sink);
             }
+            return sink;
+        }
+
+        public static int encodedLength(ZonedDateTime timestamp) {
+            return timestamp == null ? 0 : IsoTimestamp.length(timestamp);
+        }
+
+        public static ZonedDateTime decode(byte[] bytes, int offset, int length, DecodingState state) {
+            return decode(new AsciiSequence(bytes, offset, length), state);
+        }
+
+        public static ZonedDateTime decode(ByteBuffer buffer, int offset, int length, DecodingState state) {
+            return decode(new AsciiSequence(buffer, offset, length), state);
+        }
+
+        public static ZonedDateTime decode(CharSequence expr, DecodingState state) {
+            int begin = state.getCursor();
+            int end = CodecUtils.skipTo(expr, ',', state, Timestamp::isValidTimestampCharacter);
+            return IsoTimestamp.parse(expr, begin, end);
+        }
+
+        public static EpochTimestamp decodeEpoch(byte[] bytes, int offset, int length, EpochTimestamp timestamp, DecodingState state) {
+            return decodeEpoch(new AsciiSequence(bytes, offset, length), timestamp, state);
+        }
+
+        public static EpochTimestamp decodeEpoch(ByteBuffer buffer, int offset, int length, EpochTimestamp timestamp, DecodingState state) {
+            return decodeEpoch(new AsciiSequence(buffer, offset, length), timestamp, state);
+        }
+
+        public static EpochTimestamp decodeEpoch(CharSequence expr, EpochTimestamp timestamp, DecodingState state) {
+            // Same value as decode, filled into a reusable holder instead of a new ZonedDateTime.
+            int begin = state.getCursor();
+            int end = CodecUtils.skipTo(expr, ',', state, Timestamp::isValidTimestampCharacter);
+            IsoTimestamp.parse(expr, begin, end, timestamp);
+            return timestamp;
         }
 
         private static boolean isValidTimestampCharacter(char c) {
-            return CodecUtils.isNumber(c) || CodecUtils.isUpperLetter(c) || CodecUtils.isLowerLetter(c) || c == '-' || c == ':' || c == '+' || c == '[' || c == ']' || c == '/' || c == '.';
+            return CodecUtils.isNumber(c) || CodecUtils.isUpperLetter(c) || CodecUtils.isLowerLetter(c) || c == '-' || c == ':' || c == '+' || c == '[' || c == ']' || c == '/' || c == '.' || c == '_';
+        }
+
+        public static void skip(CharSequence expr, DecodingState state) {
+            // Moves past the value without checking or decoding it.
+            CodecUtils.validateOffset(expr, state.getCursor());
+            state.setCursor(CodecUtils.moveAfter(expr, state.getCursor(), ','));
         }
     }
 }
@@ -0,0 +1,79 @@
+package io.textor.columnar;
+
+import io.textor.Cell;
+import io.textor.ColumnDescriptor;
+import io.textor.ValueType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ASCII and BINARY values packed back to back in one byte arena, value at position p spans
+ * [offsets[p], offsets[p + 1]).
+ */
+public class BytesVector extends ColumnVector {
+    private int[] offsets = new int[1];
+    private byte[] arena = new byte[64];
+
+    BytesVector(ColumnDescriptor columnDescriptor) {
+        super(columnDescriptor);
+    }
+
+    public int getLength(int position) {
+        return isNull(position) ? 0 : offsets[position + 1] - offsets[position];
+    }
+
+    public byte[] getBytes(int position) {
+        return isNull(position) ? null : Arrays.copyOfRange(arena, offsets[position], offsets[position + 1]);
+    }
+
+    public String getString(int position) {
+        if (isNull(position)) {
+            return null;
+        }
+        return new String(arena, offsets[position], offsets[position + 1] - offsets[position], StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public Cell getCell(int position, int index) {
+        if (isNull(position)) {
+            return null;
+        }
+        boolean ascii = getColumnDescriptor().getValueDescriptor().getType() == ValueType.ASCII;
+        return new Cell(index, getColumnDescriptor(), ascii ? getString(position) : getBytes(position));
+    }
+
+    void set(int position, byte[] value) {
+        prepare(position);
+        int begin = reserve(position, value.length);
+        System.arraycopy(value, 0, arena, begin, value.length);
+    }
+
+    void set(int position, String value) {
+        prepare(position);
+        int begin = reserve(position, value.length());
+        // ASCII is checked by the decoder, so one char is one byte.
+        for (int index = 0; index < value.length(); ++index) {
+            arena[begin + index] = (byte)value.charAt(index);
+        }
+    }
+
+    private int reserve(int position, int length) {
+        int begin = offsets[position];
+        if (arena.length - begin < length) {
+            arena = Arrays.copyOf(arena, Math.max(begin + length, arena.length * 2));
+        }
+        offsets[position + 1] = begin + length;
+        return begin;
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        offsets = Arrays.copyOf(offsets, newCapacity + 1);
+    }
+
+    @Override
+    void putNull(int position) {
+        offsets[position + 1] = offsets[position];
+    }
+}
@@ -0,0 +1,79 @@
+package io.textor.columnar;
+
+import io.textor.Cell;
+import io.textor.ColumnDescriptor;
+
+import java.util.Arrays;
+
+/**
+ * Values of one column stored by position, with a bitmap marking positions where the row has no value.
+ */
+public abstract class ColumnVector {
+    private final ColumnDescriptor descriptor;
+    private long[] nulls = new long[1];
+    private int capacity;
+    private int size;
+
+    ColumnVector(ColumnDescriptor columnDescriptor) {
+        descriptor = columnDescriptor;
+    }
+
+    public ColumnDescriptor getColumnDescriptor() {
+        return descriptor;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int position) {
+        if (position < 0 || position >= size) {
+            return true;
+        }
+        return (nulls[position >>> 6] & (1L << position)) != 0;
+    }
+
+    public abstract Cell getCell(int position, int index);
+
+    int prepare(int position) {
+        // Positions skipped by rows without this column become nulls, a position written before is overwritten.
+        if (position < size) {
+            truncate(position);
+        }
+        while (size < position) {
+            ensureCapacity(size + 1);
+            nulls[size >>> 6] |= 1L << size;
+            putNull(size++);
+        }
+        ensureCapacity(position + 1);
+        nulls[position >>> 6] &= ~(1L << position);
+        size = position + 1;
+        return position;
+    }
+
+    void truncate(int newSize) {
+        if (newSize < size) {
+            size = newSize;
+        }
+    }
+
+    boolean accepts(ColumnDescriptor other) {
+        return other == descriptor || descriptor.getValueDescriptor().matches(other.getValueDescriptor());
+    }
+
+    abstract void grow(int newCapacity);
+
+    abstract void putNull(int position);
+
+    private void ensureCapacity(int required) {
+        if (required <= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(required, Math.max(16, capacity * 2));
+        grow(newCapacity);
+        if (nulls.length * 64 < newCapacity) {
+            nulls = Arrays.copyOf(nulls, (newCapacity + 63) >>> 6);
+        }
+        capacity = newCapacity;
+    }
+}
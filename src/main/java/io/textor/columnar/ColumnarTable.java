@@ -0,0 +1,182 @@
+package io.textor.columnar;
+
+import io.textor.AsciiDictionary;
+import io.textor.Cell;
+import io.textor.ColumnDescriptor;
+import io.textor.KeyType;
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.Schema;
+import io.textor.codec.CellVisitor;
+import io.textor.codec.Codec;
+import io.textor.codec.Projection;
+import io.textor.io.TextorReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rows decoded straight into one {@link ColumnVector} per column and attribute, without building cells. Columns are
+ * added as they first appear and keep the descriptor they first appear with, rows missing a column hold nulls.
+ * Rows are addressed by position, the order they were appended, and {@link #getRow(int)} builds a row view on demand.
+ */
+public class ColumnarTable {
+    private final static Cell[] zeros = new Cell[0];
+    private final Map<String, ColumnVector> columns = new LinkedHashMap<>();
+    private final Map<String, ColumnVector> attributes = new LinkedHashMap<>();
+    private final Appender appender = new Appender();
+    private int[] indices = new int[16];
+    private int rowCount;
+
+    public static ColumnarTable read(Path path) throws IOException {
+        return read(path, null);
+    }
+
+    public static ColumnarTable read(Path path, Projection projection) throws IOException {
+        ColumnarTable table = new ColumnarTable();
+        try (TextorReader reader = new TextorReader(path)) {
+            CharSequence line;
+            while ((line = reader.readLine()) != null) {
+                table.append(line, reader.getSchema(), projection, reader.getDictionary(), reader.getLineIndex());
+            }
+        }
+        return table;
+    }
+
+    public int append(CharSequence expr, int index) {
+        return append(expr, null, null, index);
+    }
+
+    public int append(CharSequence expr, Schema schema, Projection projection, int index) {
+        return append(expr, schema, projection, null, index);
+    }
+
+    public int append(CharSequence expr, Schema schema, Projection projection, AsciiDictionary dictionary, int index) {
+        // Values-only rows need the schema of the header before them, self-describing rows take null. Without
+        // projection all cells are kept, and rows with $id values need the dictionary in effect.
+        int position = rowCount;
+        appender.position = position;
+        try {
+            if (schema == null) {
+                Codec.decode(expr, projection, dictionary, appender);
+            }
+            else {
+                Codec.decode(expr, schema, projection, dictionary, appender);
+            }
+        }
+        catch (IllegalArgumentException exception) {
+            // Drop whatever the failed row had written, so the table stays as it was.
+            columns.values().forEach(vector -> vector.truncate(position));
+            attributes.values().forEach(vector -> vector.truncate(position));
+            throw new RowDecodeException(index, exception);
+        }
+        if (position == indices.length) {
+            indices = Arrays.copyOf(indices, position * 2);
+        }
+        indices[position] = index;
+        return rowCount++;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getIndex(int position) {
+        checkPosition(position);
+        return indices[position];
+    }
+
+    public ColumnVector getColumn(String columnName) {
+        return columns.get(columnName);
+    }
+
+    public Map<String, ColumnVector> getColumns() {
+        return Collections.unmodifiableMap(columns);
+    }
+
+    public ColumnVector getAttribute(String attributeName) {
+        return attributes.get(attributeName);
+    }
+
+    public Map<String, ColumnVector> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public Row getRow(int position) {
+        checkPosition(position);
+        int index = indices[position];
+        return new Row(index, collect(columns, position, index), collect(attributes, position, index));
+    }
+
+    private Cell[] collect(Map<String, ColumnVector> vectors, int position, int index) {
+        List<Cell> cells = new ArrayList<>(vectors.size());
+        for (ColumnVector vector : vectors.values()) {
+            Cell cell = vector.getCell(position, index);
+            if (cell != null) {
+                cells.add(cell);
+            }
+        }
+        return cells.toArray(zeros);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= rowCount) {
+            throw new IllegalArgumentException("Row position " + position + " out of range [0, " + rowCount + ").");
+        }
+    }
+
+    private <T extends ColumnVector> T vector(ColumnDescriptor descriptor, Class<T> vectorType) {
+        Map<String, ColumnVector> vectors = descriptor.getKeyDescriptor().getType() == KeyType.ATTRIBUTE ? attributes : columns;
+        String name = descriptor.getKeyDescriptor().getName();
+        ColumnVector vector = vectors.get(name);
+        if (vector == null) {
+            vector = switch (descriptor.getValueDescriptor().getType()) {
+                case INTEGER -> new LongVector(descriptor);
+                case DECIMAL -> new DoubleVector(descriptor);
+                case ASCII, BINARY -> new BytesVector(descriptor);
+                case TIMESTAMP -> new TimestampVector(descriptor);
+            };
+            vectors.put(name, vector);
+        }
+        else if (!vector.accepts(descriptor)) {
+            throw new IllegalArgumentException("Conflicting descriptor for " + name + ".");
+        }
+        return vectorType.cast(vector);
+    }
+
+    private class Appender implements CellVisitor {
+        private int position;
+
+        @Override
+        public void visitInteger(ColumnDescriptor descriptor, long value) {
+            vector(descriptor, LongVector.class).set(position, value);
+        }
+
+        @Override
+        public void visitDecimal(ColumnDescriptor descriptor, double value) {
+            vector(descriptor, DoubleVector.class).set(position, value);
+        }
+
+        @Override
+        public void visitAscii(ColumnDescriptor descriptor, String value) {
+            vector(descriptor, BytesVector.class).set(position, value);
+        }
+
+        @Override
+        public void visitBinary(ColumnDescriptor descriptor, byte[] value) {
+            vector(descriptor, BytesVector.class).set(position, value);
+        }
+
+        @Override
+        public void visitTimestamp(ColumnDescriptor descriptor, ZonedDateTime value) {
+            vector(descriptor, TimestampVector.class).set(position, value);
+        }
+    }
+}
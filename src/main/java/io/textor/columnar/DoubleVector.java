@@ -0,0 +1,43 @@
+package io.textor.columnar;
+
+import io.textor.Cell;
+import io.textor.ColumnDescriptor;
+
+import java.util.Arrays;
+
+public class DoubleVector extends ColumnVector {
+    private double[] values = new double[0];
+
+    DoubleVector(ColumnDescriptor columnDescriptor) {
+        super(columnDescriptor);
+    }
+
+    public double getDouble(int position) {
+        // A null position reads as 0, like Cell.getDouble().
+        return isNull(position) ? 0D : values[position];
+    }
+
+    public double[] toArray() {
+        return Arrays.copyOf(values, size());
+    }
+
+    @Override
+    public Cell getCell(int position, int index) {
+        return isNull(position) ? null : new Cell(index, getColumnDescriptor(), values[position]);
+    }
+
+    void set(int position, double value) {
+        prepare(position);
+        values[position] = value;
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+
+    @Override
+    void putNull(int position) {
+        values[position] = 0D;
+    }
+}
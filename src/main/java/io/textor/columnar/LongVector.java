@@ -0,0 +1,43 @@
+package io.textor.columnar;
+
+import io.textor.Cell;
+import io.textor.ColumnDescriptor;
+
+import java.util.Arrays;
+
+public class LongVector extends ColumnVector {
+    private long[] values = new long[0];
+
+    LongVector(ColumnDescriptor columnDescriptor) {
+        super(columnDescriptor);
+    }
+
+    public long getLong(int position) {
+        // A null position reads as 0, like Cell.getLong().
+        return isNull(position) ? 0L : values[position];
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size());
+    }
+
+    @Override
+    public Cell getCell(int position, int index) {
+        return isNull(position) ? null : new Cell(index, getColumnDescriptor(), values[position]);
+    }
+
+    void set(int position, long value) {
+        prepare(position);
+        values[position] = value;
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        values = Arrays.copyOf(values, newCapacity);
+    }
+
+    @Override
+    void putNull(int position) {
+        values[position] = 0L;
+    }
+}
@@ -0,0 +1,77 @@
+package io.textor.columnar;
+
+import io.textor.Cell;
+import io.textor.ColumnDescriptor;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timestamps stored as epoch seconds and nanos, with the zone as an index into a per-column zone dictionary.
+ */
+public class TimestampVector extends ColumnVector {
+    private final Map<ZoneId, Integer> zoneIds = new HashMap<>();
+    private final List<ZoneId> zones = new ArrayList<>();
+    private long[] seconds = new long[0];
+    private int[] nanos = new int[0];
+    private int[] zoneIndices = new int[0];
+
+    TimestampVector(ColumnDescriptor columnDescriptor) {
+        super(columnDescriptor);
+    }
+
+    public long getEpochSecond(int position) {
+        return isNull(position) ? 0L : seconds[position];
+    }
+
+    public int getNano(int position) {
+        return isNull(position) ? 0 : nanos[position];
+    }
+
+    public ZoneId getZone(int position) {
+        return isNull(position) ? null : zones.get(zoneIndices[position]);
+    }
+
+    public ZonedDateTime getTimestamp(int position) {
+        if (isNull(position)) {
+            return null;
+        }
+        // Same instant and zone give back the decoded value, the offset follows from the zone rules either way.
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(seconds[position], nanos[position]), zones.get(zoneIndices[position]));
+    }
+
+    @Override
+    public Cell getCell(int position, int index) {
+        return isNull(position) ? null : new Cell(index, getColumnDescriptor(), getTimestamp(position));
+    }
+
+    void set(int position, ZonedDateTime value) {
+        prepare(position);
+        seconds[position] = value.toEpochSecond();
+        nanos[position] = value.getNano();
+        zoneIndices[position] = zoneIds.computeIfAbsent(value.getZone(), zone -> {
+            zones.add(zone);
+            return zones.size() - 1;
+        });
+    }
+
+    @Override
+    void grow(int newCapacity) {
+        seconds = Arrays.copyOf(seconds, newCapacity);
+        nanos = Arrays.copyOf(nanos, newCapacity);
+        zoneIndices = Arrays.copyOf(zoneIndices, newCapacity);
+    }
+
+    @Override
+    void putNull(int position) {
+        seconds[position] = 0L;
+        nanos[position] = 0;
+        zoneIndices[position] = 0;
+    }
+}
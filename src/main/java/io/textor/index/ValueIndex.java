@@ -0,0 +1,404 @@
+package io.textor.index;
+
+import io.textor.Cell;
+import io.textor.KeyType;
+import io.textor.Row;
+import io.textor.ValueType;
+import io.textor.codec.Projection;
+import io.textor.io.ParallelTextorReader;
+import io.textor.io.TextorReader;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Secondary index from the values of one INTEGER or ASCII key of a Textor file to the indices of the rows holding
+ * them, kept in a '.vidx' file next to it. A key is named the way {@link Projection} names it, so attributes take an
+ * '@' prefix. Rows without the key, with a null value or with another value type are not indexed.
+ * <p>
+ * The index is a list of runs sorted by value then row, each covering the lines appended after the one before it.
+ * {@link #update()} adds a run for new lines and merges all runs into one once there are more than maxRuns. Lookups
+ * binary search every run, and rows found go to {@link TextorReader#readRow(int)}.
+ */
+public class ValueIndex {
+    private final static int magic = 0x54564958 /* TVIX */;
+    private final static int version = 1;
+    private final static int maxRuns = 8;
+    private final static Comparator<Entry> integerOrder = Comparator.<Entry>comparingLong(entry -> (Long)entry.value).thenComparingInt(Entry::row);
+    private final static Comparator<Entry> asciiOrder = Comparator.<Entry, String>comparing(entry -> (String)entry.value).thenComparingInt(Entry::row);
+
+    private final Path file;
+    private final String key;
+    private final ValueType type;
+    private final Projection projection;
+    private final List<Run> runs = new ArrayList<>();
+    // Lines of the file indexed so far, and the position after them.
+    private int lineCount;
+    private long endOffset;
+
+    private ValueIndex(Path dataFile, String indexKey, ValueType valueType) {
+        if (valueType != ValueType.INTEGER && valueType != ValueType.ASCII) {
+            throw new IllegalArgumentException(valueType + " values are not indexed.");
+        }
+        file = dataFile;
+        key = indexKey;
+        type = valueType;
+        projection = new Projection(indexKey);
+    }
+
+    public static Path pathOf(Path file, String key) {
+        return file.resolveSibling(file.getFileName() + "." + key + ".vidx");
+    }
+
+    public static ValueIndex build(Path file, String key, ValueType type) throws IOException {
+        return build(file, key, type, ForkJoinPool.commonPool());
+    }
+
+    public static ValueIndex build(Path file, String key, ValueType type, Executor executor) throws IOException {
+        // Rows are decoded in parallel chunks, each thread collects its own entries, and all are sorted in one run.
+        Objects.requireNonNull(key);
+        ValueIndex index = new ValueIndex(file, key, type);
+        // Same as update(), a last line without '\n' is left to the next update, and is not even decoded.
+        index.endOffset = lastLineStart(file, Files.size(file));
+        try (TextorReader reader = new TextorReader(file, 1L << 28, index.endOffset)) {
+            reader.seek(Integer.MAX_VALUE);
+            index.lineCount = reader.getLineNumber();
+        }
+        ConcurrentLinkedQueue<List<Entry>> collected = new ConcurrentLinkedQueue<>();
+        ThreadLocal<List<Entry>> entries = ThreadLocal.withInitial(() -> {
+            List<Entry> list = new ArrayList<>();
+            collected.add(list);
+            return list;
+        });
+        try (ParallelTextorReader reader = new ParallelTextorReader(file, 4L << 20, executor, index.endOffset)) {
+            reader.forEach(index.projection, row -> {
+                Entry entry = index.entryOf(row);
+                if (entry != null) {
+                    entries.get().add(entry);
+                }
+            });
+        }
+        List<Entry> all = new ArrayList<>();
+        collected.forEach(all::addAll);
+        index.runs.add(index.toRun(all));
+        index.save();
+        return index;
+    }
+
+    public static ValueIndex open(Path file, String key) throws IOException {
+        // Returns null if the file has no index on key.
+        Path path = pathOf(file, key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+        DataInputStream input = new DataInputStream(buffer);
+        ValueIndex index;
+        try {
+            if (input.readInt() != magic || input.readInt() != version) {
+                throw new IOException("Not a value index: " + path + ".");
+            }
+            index = new ValueIndex(file, input.readUTF(), ValueType.values()[input.readByte()]);
+        }
+        catch (EOFException exception) {
+            throw new IOException("Not a value index: " + path + ".", exception);
+        }
+        if (!index.key.equals(key)) {
+            throw new IOException("Value index " + path + " is on " + index.key + ".");
+        }
+        long complete = bytes.length - buffer.available();
+        while (buffer.available() > 0) {
+            try {
+                int count = input.readInt();
+                int lines = input.readInt();
+                long end = input.readLong();
+                index.runs.add(index.readRun(input, count));
+                index.lineCount = lines;
+                index.endOffset = end;
+                complete = bytes.length - buffer.available();
+            }
+            catch (EOFException exception) {
+                break;
+            }
+        }
+        if (complete < bytes.length) {
+            // A run torn by a crash is cut off, so that the next update appends after the last complete run and
+            // indexes its lines again.
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+                channel.force(false);
+            }
+        }
+        return index;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public ValueType getType() {
+        return type;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int update() throws IOException {
+        // Indexes lines appended since the last update as a new run, and returns the number of rows indexed. Only
+        // lines ending with '\n' are taken, a line still being written is left to the next update.
+        long size = Files.size(file);
+        if (size < endOffset) {
+            throw new IOException("File is shorter than its value index, build the index again.");
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file, 1L << 28, lastLineStart(file, size))) {
+            reader.seek(lineCount);
+            Row row;
+            while ((row = reader.read(projection)) != null) {
+                Entry entry = entryOf(row);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            if (reader.getLineNumber() == lineCount) {
+                return 0;
+            }
+            lineCount = reader.getLineNumber();
+            endOffset = reader.getPosition();
+        }
+        Run run = toRun(entries);
+        runs.add(run);
+        if (runs.size() > maxRuns) {
+            compact();
+            save();
+        }
+        else {
+            append(run);
+        }
+        return entries.size();
+    }
+
+    public int[] equalTo(Object value) {
+        Object normalized = normalize(value);
+        return collect(normalized, true, normalized, true);
+    }
+
+    public int[] range(Object from, Object to) {
+        // Rows with values in [from, to), a null bound is open.
+        return collect(from == null ? null : normalize(from), true, to == null ? null : normalize(to), false);
+    }
+
+    private int[] collect(Object from, boolean fromInclusive, Object to, boolean toInclusive) {
+        int total = 0;
+        int[][] found = new int[runs.size()][];
+        for (int cur = 0; cur < runs.size(); ++cur) {
+            Run run = runs.get(cur);
+            int begin = from == null ? 0 : run.search(from, !fromInclusive);
+            int end = to == null ? run.rows.length : run.search(to, toInclusive);
+            found[cur] = Arrays.copyOfRange(run.rows, begin, Math.max(begin, end));
+            total += found[cur].length;
+        }
+        int[] rows = new int[total];
+        int position = 0;
+        for (int[] part : found) {
+            System.arraycopy(part, 0, rows, position, part.length);
+            position += part.length;
+        }
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    private Object normalize(Object value) {
+        if (type == ValueType.INTEGER && (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)) {
+            return ((Number)value).longValue();
+        }
+        if (type == ValueType.ASCII && value instanceof String) {
+            return value;
+        }
+        throw new IllegalArgumentException(type + " index can't look up " + (value == null ? null : value.getClass().getTypeName()) + ".");
+    }
+
+    private Entry entryOf(Row row) {
+        Cell cell = key.startsWith(KeyType.ATTRIBUTE.getToken())
+                ? row.getAttribute(key.substring(KeyType.ATTRIBUTE.getToken().length()))
+                : row.getColumn(key);
+        if (cell == null || cell.isNull() || cell.getColumnDescriptor().getValueDescriptor().getType() != type) {
+            return null;
+        }
+        return new Entry(type == ValueType.INTEGER ? cell.getLong() : cell.getAsciiString(), row.getIndex());
+    }
+
+    private static long lastLineStart(Path file, long size) throws IOException {
+        // Position after the last '\n' of file, or 0 if it has none.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long position = size;
+            while (position > 0) {
+                long from = Math.max(0, position - buffer.capacity());
+                buffer.clear().limit((int)(position - from));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, from + buffer.position()) < 0) {
+                        throw new EOFException("File is shorter than " + size + " bytes.");
+                    }
+                }
+                for (int cur = buffer.position() - 1; cur >= 0; --cur) {
+                    if (buffer.get(cur) == '\n') {
+                        return from + cur + 1;
+                    }
+                }
+                position = from;
+            }
+            return 0;
+        }
+    }
+
+    private Run toRun(List<Entry> entries) {
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.parallelSort(sorted, type == ValueType.INTEGER ? integerOrder : asciiOrder);
+        Run run = new Run(type, sorted.length);
+        for (int cur = 0; cur < sorted.length; ++cur) {
+            run.set(cur, sorted[cur].value, sorted[cur].row);
+        }
+        return run;
+    }
+
+    private void compact() {
+        List<Entry> all = new ArrayList<>();
+        for (Run run : runs) {
+            for (int cur = 0; cur < run.rows.length; ++cur) {
+                all.add(new Entry(run.get(cur), run.rows[cur]));
+            }
+        }
+        runs.clear();
+        runs.add(toRun(all));
+    }
+
+    private void save() throws IOException {
+        // Written aside and moved over the index, so readers see the old or the new one.
+        Path path = pathOf(file, key);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeInt(magic);
+            output.writeInt(version);
+            output.writeUTF(key);
+            output.writeByte(type.ordinal());
+            for (Run run : runs) {
+                writeRun(output, run);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void append(Run run) throws IOException {
+        Path path = pathOf(file, key);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND)))) {
+            writeRun(output, run);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    private void writeRun(DataOutputStream output, Run run) throws IOException {
+        output.writeInt(run.rows.length);
+        output.writeInt(lineCount);
+        output.writeLong(endOffset);
+        for (int cur = 0; cur < run.rows.length; ++cur) {
+            if (type == ValueType.INTEGER) {
+                output.writeLong(run.integers[cur]);
+            }
+            else {
+                byte[] bytes = run.asciis[cur].getBytes(StandardCharsets.ISO_8859_1);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+            output.writeInt(run.rows[cur]);
+        }
+    }
+
+    private Run readRun(DataInputStream input, int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Illegal value index run of " + count + " entries.");
+        }
+        Run run = new Run(type, count);
+        for (int cur = 0; cur < count; ++cur) {
+            Object value;
+            if (type == ValueType.INTEGER) {
+                value = input.readLong();
+            }
+            else {
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                value = new String(bytes, StandardCharsets.ISO_8859_1);
+            }
+            run.set(cur, value, input.readInt());
+        }
+        return run;
+    }
+
+    private record Entry(Object value, int row) {
+    }
+
+    private static class Run {
+        private final long[] integers;
+        private final String[] asciis;
+        private final int[] rows;
+
+        private Run(ValueType type, int count) {
+            integers = type == ValueType.INTEGER ? new long[count] : null;
+            asciis = type == ValueType.ASCII ? new String[count] : null;
+            rows = new int[count];
+        }
+
+        private void set(int position, Object value, int row) {
+            if (integers != null) {
+                integers[position] = (Long)value;
+            }
+            else {
+                asciis[position] = (String)value;
+            }
+            rows[position] = row;
+        }
+
+        private Object get(int position) {
+            return integers != null ? (Object)integers[position] : asciis[position];
+        }
+
+        private int search(Object value, boolean after) {
+            // First position with a value above (after) or at least (!after) value.
+            int low = 0, high = rows.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int compared = integers != null ? Long.compare(integers[middle], (Long)value) : asciis[middle].compareTo((String)value);
+                if (compared < 0 || (after && compared == 0)) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
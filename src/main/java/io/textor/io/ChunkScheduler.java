@@ -0,0 +1,109 @@
+package io.textor.io;
+
+import io.textor.Row;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the chunks of a file on an executor, for {@link ParallelTextorReader} and {@link CompressedTextorReader}.
+ * Once the caller gives up on a failure, the aborted flag passed to every chunk is set, and chunks already running
+ * check it per line and stop early.
+ */
+class ChunkScheduler<C> {
+    @FunctionalInterface
+    interface ChunkDecoder<C> {
+        // Returns the number of rows given to action.
+        long decode(C chunk, Consumer<? super Row> action, AtomicBoolean aborted);
+    }
+
+    private final Executor executor;
+    private final int maxPendingChunks;
+    private final ChunkDecoder<C> decoder;
+
+    ChunkScheduler(Executor executor, int maxPendingChunks, ChunkDecoder<C> decoder) {
+        this.executor = executor;
+        this.maxPendingChunks = maxPendingChunks;
+        this.decoder = decoder;
+    }
+
+    long forEachOrdered(List<C> chunks, Consumer<? super Row> action) throws IOException {
+        // Chunks are decoded ahead on the executor but handed to action in file order on the calling thread. At most
+        // maxPendingChunks decoded chunks are held at a time.
+        Deque<CompletableFuture<List<Row>>> pending = new ArrayDeque<>();
+        AtomicBoolean aborted = new AtomicBoolean();
+        long count = 0;
+        int next = 0;
+        try {
+            while (next < chunks.size() || !pending.isEmpty()) {
+                while (next < chunks.size() && pending.size() < maxPendingChunks) {
+                    C chunk = chunks.get(next++);
+                    pending.add(CompletableFuture.supplyAsync(() -> {
+                        List<Row> rows = new ArrayList<>();
+                        decoder.decode(chunk, rows::add, aborted);
+                        return rows;
+                    }, executor));
+                }
+                List<Row> rows = join(pending.poll());
+                for (Row row : rows) {
+                    action.accept(row);
+                }
+                count += rows.size();
+            }
+        }
+        finally {
+            aborted.set(!pending.isEmpty());
+            pending.forEach(future -> future.cancel(false));
+        }
+        return count;
+    }
+
+    long forEach(List<C> chunks, Consumer<? super Row> action) throws IOException {
+        // Rows go to action on executor threads as soon as they are decoded, so action has to be thread-safe.
+        List<CompletableFuture<Long>> futures = new ArrayList<>(chunks.size());
+        AtomicBoolean aborted = new AtomicBoolean();
+        for (C chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> decoder.decode(chunk, action, aborted), executor));
+        }
+        long count = 0;
+        int joined = 0;
+        try {
+            for (; joined < futures.size(); ++joined) {
+                count += join(futures.get(joined));
+            }
+        }
+        finally {
+            aborted.set(joined < futures.size());
+            futures.forEach(future -> future.cancel(false));
+        }
+        return count;
+    }
+
+    static <T> T join(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.join();
+        }
+        catch (CompletionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.codec.AsciiSequence;
+import io.textor.codec.Codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a block-compressed Textor file written by {@link CompressedTextorWriter}. The block directory at the tail
+ * gives the first line and the file offset of every block, so {@link #readRow(int)} inflates only the block holding
+ * the row, and {@link #forEachOrdered(Consumer)} inflates and decodes blocks in parallel. Row indices are line numbers
+ * of the uncompressed text, same as {@link TextorReader}.
+ */
+public class CompressedTextorReader implements Closeable {
+    final static int magic = 0x54585A31 /* TXZ1 */;
+    private final static int trailerSize = 12;
+
+    private final FileChannel channel;
+    private final ChunkScheduler<Block> scheduler;
+    private final int lineCount;
+    private final Block[] blocks;
+    private final Schema[] schemas;
+    // Rows of the block last read by readRow.
+    private int cachedBlock = -1;
+    private List<Row> cachedRows;
+
+    public CompressedTextorReader(Path path) throws IOException {
+        this(path, ForkJoinPool.commonPool());
+    }
+
+    public CompressedTextorReader(Path path, Executor executor) throws IOException {
+        if (executor == null) {
+            throw new IllegalArgumentException("Illegal executor: null.");
+        }
+        scheduler = new ChunkScheduler<>(executor, 2 * Runtime.getRuntime().availableProcessors(), this::decodeUnchecked);
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer trailer = read(size - trailerSize, trailerSize, size);
+            long directoryOffset = trailer.getLong();
+            if (trailer.getInt() != magic || read(0, 4, size).getInt() != magic || directoryOffset < 4 || directoryOffset > size - trailerSize) {
+                throw new IOException("Not a compressed Textor file: " + path + ".");
+            }
+            ByteBuffer bytes = read(directoryOffset, (int)(size - trailerSize - directoryOffset), size);
+            DataInputStream directory = new DataInputStream(new ByteArrayInputStream(bytes.array()));
+            lineCount = directory.readInt();
+            blocks = new Block[directory.readInt()];
+            for (int cur = 0; cur < blocks.length; ++cur) {
+                blocks[cur] = new Block(directory.readLong(), directory.readInt(), directory.readInt(),
+                        directory.readInt(), directory.readInt(), directory.readInt());
+            }
+            schemas = new Schema[directory.readInt()];
+            for (int cur = 0; cur < schemas.length; ++cur) {
+                schemas[cur] = Codec.decodeSchema(directory.readUTF());
+            }
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int getBlockCount() {
+        return blocks.length;
+    }
+
+    public int getFirstLine(int block) {
+        return blocks[block].firstLine;
+    }
+
+    public int blockOf(int line) {
+        // Block holding line, or -1 if the file has no such line.
+        int low = 0, high = blocks.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Block block = blocks[middle];
+            if (line < block.firstLine) {
+                high = middle - 1;
+            }
+            else if (line >= block.firstLine + block.lineCount) {
+                low = middle + 1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public Row readRow(int index) throws IOException {
+        // Returns the row on line index, or null if that line is blank, a schema header or past the end.
+        int block = blockOf(index);
+        if (block == -1) {
+            return null;
+        }
+        if (block != cachedBlock) {
+            cachedRows = readBlock(block);
+            cachedBlock = block;
+        }
+        int low = 0, high = cachedRows.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int found = cachedRows.get(middle).getIndex();
+            if (found == index) {
+                return cachedRows.get(middle);
+            }
+            if (found < index) {
+                low = middle + 1;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return null;
+    }
+
+    public List<Row> readBlock(int block) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        decode(blocks[block], rows::add, new AtomicBoolean());
+        return rows;
+    }
+
+    public long forEachOrdered(Consumer<? super Row> action) throws IOException {
+        // Blocks are inflated and decoded ahead on the executor but handed to action in file order on the calling
+        // thread, with at most two decoded blocks per processor held at a time.
+        return scheduler.forEachOrdered(Arrays.asList(blocks), action);
+    }
+
+    public long forEach(Consumer<? super Row> action) throws IOException {
+        // Rows go to action on executor threads as soon as they are decoded, so action has to be thread-safe.
+        return scheduler.forEach(Arrays.asList(blocks), action);
+    }
+
+    private long decodeUnchecked(Block block, Consumer<? super Row> action, AtomicBoolean aborted) {
+        try {
+            return decode(block, action, aborted);
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private long decode(Block block, Consumer<? super Row> action, AtomicBoolean aborted) throws IOException {
+        // Running blocks stop early once the caller gave up on a failure elsewhere.
+        ByteBuffer text = ByteBuffer.wrap(inflate(block)).order(ByteOrder.LITTLE_ENDIAN);
+        AsciiSequence line = new AsciiSequence();
+        // Dictionary lines hold for the rest of their block only, so a block decodes without the ones before it.
+        LineDecoder decoder = new LineDecoder(block.schemaId == -1 ? null : schemas[block.schemaId], new AsciiDictionary());
+        int limit = text.limit();
+        int from = 0;
+        int index = block.firstLine;
+        long count = 0;
+        while (from < limit && !aborted.get()) {
+            int n = Lines.indexOfNewline(text, from, limit);
+            int end = n == -1 ? limit : n;
+            int to = Lines.trimCarriageReturn(text, from, end);
+            line.wrap(text, from, to - from);
+            if (decoder.apply(line, index)) {
+                action.accept(decoder.decode(line, null, null, index));
+                ++count;
+            }
+            ++index;
+            from = end + 1;
+        }
+        return count;
+    }
+
+    private byte[] inflate(Block block) throws IOException {
+        ByteBuffer compressed = read(block.offset, block.compressedLength, channel.size());
+        byte[] text = new byte[block.length];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), 0, block.compressedLength);
+            int length = 0;
+            while (length < text.length && !inflater.finished()) {
+                int inflated = inflater.inflate(text, length, text.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != text.length) {
+                throw new IOException("Block at " + block.offset + " inflates to " + length + " bytes, not " + text.length + ".");
+            }
+            return text;
+        }
+        catch (DataFormatException exception) {
+            throw new IOException("Block at " + block.offset + " is corrupt.", exception);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private ByteBuffer read(long position, int length, long size) throws IOException {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw new IOException("Range [" + position + "," + (position + length) + ") is outside the file.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at " + (position + buffer.position()) + ".");
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    record Block(long offset, int compressedLength, int length, int firstLine, int lineCount, int schemaId) {
+    }
+}
@@ -0,0 +1,190 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.codec.Codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes rows to a block-compressed Textor file, read back by {@link CompressedTextorReader}. Lines are gathered into
+ * blocks of about block-size bytes, and every block is Deflate-compressed on its own, so it can be inflated without
+ * the blocks before it. The block directory goes at the tail of the file on close, so a file is written once and not
+ * appended to later.
+ * <p>
+ * With schema headers on, the directory records the schema in effect at the start of every block.
+ */
+public class CompressedTextorWriter implements Closeable {
+    private final static int defaultBlockSize = 1 << 20;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final boolean schemaHeaders;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final List<CompressedTextorReader.Block> blocks = new ArrayList<>();
+    private final Map<String, Integer> schemaIds = new HashMap<>();
+    private final List<String> schemaHeaderLines = new ArrayList<>();
+    private ByteBuffer block;
+    private byte[] compressed;
+    private int lineCount;
+    private int blockFirstLine;
+    private int blockSchemaId = -1;
+    private Schema schema;
+    private boolean closed;
+
+    public CompressedTextorWriter(Path path) throws IOException {
+        this(path, defaultBlockSize, false);
+    }
+
+    public CompressedTextorWriter(Path path, int blockSize, boolean schemaHeaders) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize + ".");
+        }
+        this.blockSize = blockSize;
+        this.schemaHeaders = schemaHeaders;
+        block = ByteBuffer.allocate(blockSize + 1024);
+        compressed = new byte[blockSize + 1024];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            writeFully(ByteBuffer.allocate(4).putInt(CompressedTextorReader.magic).flip());
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public synchronized int append(Row row) throws IOException {
+        // Returns the line number of the row, same as its index in an uncompressed file.
+        if (closed) {
+            throw new IOException("Writer is closed.");
+        }
+        if (schemaHeaders && (schema == null || !schema.matches(row))) {
+            schema = Schema.of(row);
+            putLine(Codec.encodeSchema(schema).getBytes(StandardCharsets.US_ASCII));
+        }
+        int length = (schemaHeaders ? Codec.encodedLength(row, schema) : Codec.encodedLength(row)) + 1;
+        ensureRoom(length);
+        if (schemaHeaders) {
+            Codec.encode(row, schema, block);
+        }
+        else {
+            Codec.encode(row, block);
+        }
+        block.put((byte)'\n');
+        int index = lineCount++;
+        if (block.position() >= blockSize) {
+            flushBlock();
+        }
+        return index;
+    }
+
+    public synchronized int getLineCount() {
+        return lineCount;
+    }
+
+    private void putLine(byte[] line) throws IOException {
+        ensureRoom(line.length + 1);
+        block.put(line).put((byte)'\n');
+        ++lineCount;
+    }
+
+    private void ensureRoom(int length) {
+        if (block.position() == 0) {
+            // The schema of a block is the one in effect before its first line.
+            blockFirstLine = lineCount;
+            blockSchemaId = schemaIdOf(schema);
+        }
+        if (block.remaining() < length) {
+            block = ByteBuffer.allocate(Math.max(block.capacity() * 2, block.position() + length)).put(block.flip());
+        }
+    }
+
+    private int schemaIdOf(Schema blockSchema) {
+        if (blockSchema == null) {
+            return -1;
+        }
+        return schemaIds.computeIfAbsent(Codec.encodeSchema(blockSchema), header -> {
+            schemaHeaderLines.add(header);
+            return schemaHeaderLines.size() - 1;
+        });
+    }
+
+    private void flushBlock() throws IOException {
+        int length = block.position();
+        if (length == 0) {
+            return;
+        }
+        deflater.reset();
+        deflater.setInput(block.array(), 0, length);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+        long offset = channel.position();
+        writeFully(ByteBuffer.wrap(compressed, 0, size));
+        blocks.add(new CompressedTextorReader.Block(offset, size, length, blockFirstLine, lineCount - blockFirstLine, blockSchemaId));
+        block.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            // Directory, then its position and the magic number at the very end.
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream directory = new DataOutputStream(bytes);
+            directory.writeInt(lineCount);
+            directory.writeInt(blocks.size());
+            for (CompressedTextorReader.Block entry : blocks) {
+                directory.writeLong(entry.offset());
+                directory.writeInt(entry.compressedLength());
+                directory.writeInt(entry.length());
+                directory.writeInt(entry.firstLine());
+                directory.writeInt(entry.lineCount());
+                directory.writeInt(entry.schemaId());
+            }
+            directory.writeInt(schemaHeaderLines.size());
+            for (String header : schemaHeaderLines) {
+                directory.writeUTF(header);
+            }
+            long directoryOffset = channel.position();
+            directory.writeLong(directoryOffset);
+            directory.writeInt(CompressedTextorReader.magic);
+            writeFully(ByteBuffer.wrap(bytes.toByteArray()));
+            channel.force(false);
+        }
+        finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+}
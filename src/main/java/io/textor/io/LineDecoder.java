@@ -0,0 +1,90 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.Schema;
+import io.textor.codec.Codec;
+import io.textor.codec.Filter;
+import io.textor.codec.Projection;
+
+/**
+ * Line state shared by everything that reads Textor lines: the schema header and the dictionary in effect. Every line
+ * goes through {@link #apply(CharSequence, int)} first, which takes in blank, schema header and dictionary lines, and
+ * row lines are then decoded with the state in effect. Failures come out as {@link RowDecodeException} carrying the
+ * line index.
+ */
+public class LineDecoder {
+    private Schema schema;
+    private final AsciiDictionary dictionary;
+
+    public LineDecoder() {
+        this(null, new AsciiDictionary());
+    }
+
+    public LineDecoder(Schema initialSchema, AsciiDictionary initialDictionary) {
+        // The dictionary is used as is, not copied.
+        if (initialDictionary == null) {
+            throw new IllegalArgumentException("Illegal dictionary: null.");
+        }
+        schema = initialSchema;
+        dictionary = initialDictionary;
+    }
+
+    public boolean apply(CharSequence line, int index) {
+        // Returns true for a row line, and false for a blank, schema header or dictionary line, which is taken in.
+        if (isBlank(line)) {
+            return false;
+        }
+        try {
+            if (Codec.isSchema(line)) {
+                schema = Codec.decodeSchema(line);
+                return false;
+            }
+            if (Codec.isDictionary(line)) {
+                Codec.decodeDictionary(line, dictionary);
+                return false;
+            }
+        }
+        catch (IllegalArgumentException exception) {
+            throw new RowDecodeException(index, exception);
+        }
+        return true;
+    }
+
+    public Row decode(CharSequence line, Filter filter, Projection projection, int index) {
+        // Decodes a row line, or returns null if the filter rejects it. Either can be null for all rows or all cells.
+        try {
+            if (filter != null && !(schema == null ? filter.test(line, dictionary) : filter.test(line, schema, dictionary))) {
+                return null;
+            }
+            return schema == null ? Codec.decode(line, projection, dictionary, index) : Codec.decode(line, schema, projection, dictionary, index);
+        }
+        catch (IllegalArgumentException exception) {
+            throw new RowDecodeException(index, exception);
+        }
+    }
+
+    public void reset() {
+        schema = null;
+        dictionary.clear();
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    public AsciiDictionary getDictionary() {
+        return dictionary;
+    }
+
+    private static boolean isBlank(CharSequence line) {
+        for (int cur = 0; cur < line.length(); ++cur) {
+            char c = line.charAt(cur);
+            if (!Character.isWhitespace(c) && c != '\0') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
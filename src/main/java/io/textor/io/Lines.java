@@ -0,0 +1,64 @@
+package io.textor.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+class Lines {
+    private final static long ones = 0x0101010101010101L;
+    private final static long highs = 0x8080808080808080L;
+    private final static long newlines = ones * '\n';
+
+    static int indexOfNewline(ByteBuffer buffer, int from, int to) {
+        // Scan 8 bytes per step, a zero byte in (word ^ newlines) marks a '\n'.
+        int cur = from;
+        if (buffer.order() == ByteOrder.LITTLE_ENDIAN) {
+            for (; cur + 8 <= to; cur += 8) {
+                long word = buffer.getLong(cur) ^ newlines;
+                long found = (word - ones) & ~word & highs;
+                if (found != 0) {
+                    return cur + (Long.numberOfTrailingZeros(found) >>> 3);
+                }
+            }
+        }
+        for (; cur < to; ++cur) {
+            if (buffer.get(cur) == '\n') {
+                return cur;
+            }
+        }
+        return -1;
+    }
+
+    static int trimCarriageReturn(ByteBuffer buffer, int from, int to) {
+        return to > from && buffer.get(to - 1) == '\r' ? to - 1 : to;
+    }
+
+    static long countLines(FileChannel channel, long size) throws IOException {
+        // An unterminated last line is counted as a line.
+        final long window = 1L << 28;
+        long lines = 0;
+        for (long start = 0; start < size; start += window) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(window, size - start));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int limit = buffer.limit();
+            for (int n = indexOfNewline(buffer, 0, limit); n != -1; n = indexOfNewline(buffer, n + 1, limit)) {
+                ++lines;
+            }
+        }
+        if (size > 0 && !endsWithNewline(channel, size)) {
+            ++lines;
+        }
+        return lines;
+    }
+
+    static boolean endsWithNewline(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return true;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        return last.get(0) == '\n';
+    }
+}
@@ -0,0 +1,269 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.Schema;
+import io.textor.codec.AsciiSequence;
+import io.textor.codec.Codec;
+import io.textor.codec.Filter;
+import io.textor.codec.Projection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Decodes a Textor file on many threads. The file is split into chunks that end on line boundaries. A first parallel
+ * pass counts the lines of each chunk and finds its last schema header, so that every chunk knows its first row index
+ * and the schema in effect before decoding starts. Row indices are line numbers, same as {@link TextorReader}.
+ * Dictionary lines after the last reset of each chunk are kept by the scan too, so every chunk starts decoding with
+ * its own copy of the dictionary in effect before it.
+ */
+public class ParallelTextorReader implements Closeable {
+    private final static long defaultChunkSize = 4L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long chunkSize;
+    private final Executor executor;
+    private final int maxPendingChunks;
+
+    public ParallelTextorReader(Path path) throws IOException {
+        this(path, defaultChunkSize, ForkJoinPool.commonPool());
+    }
+
+    public ParallelTextorReader(Path path, long chunkSize, Executor executor) throws IOException {
+        this(path, chunkSize, executor, Long.MAX_VALUE);
+    }
+
+    public ParallelTextorReader(Path path, long chunkSize, Executor executor, long endOffset) throws IOException {
+        // Only the bytes before endOffset are read, as if the file ended there.
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE || executor == null || endOffset < 0) {
+            throw new IllegalArgumentException("Illegal parallel reader parameters (" + chunkSize + "," + executor + "," + endOffset + ").");
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = Math.min(channel.size(), endOffset);
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+        this.maxPendingChunks = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    public long forEachOrdered(Consumer<? super Row> action) throws IOException {
+        return forEachOrdered(null, null, action);
+    }
+
+    public long forEachOrdered(Projection projection, Consumer<? super Row> action) throws IOException {
+        return forEachOrdered(null, projection, action);
+    }
+
+    public long forEachOrdered(Filter filter, Projection projection, Consumer<? super Row> action) throws IOException {
+        // Chunks are decoded ahead on the executor but handed to action in file order on the calling thread. At most
+        // maxPendingChunks decoded chunks are held at a time.
+        return schedulerOf(filter, projection).forEachOrdered(prepare(), action);
+    }
+
+    public long forEach(Consumer<? super Row> action) throws IOException {
+        return forEach(null, null, action);
+    }
+
+    public long forEach(Projection projection, Consumer<? super Row> action) throws IOException {
+        return forEach(null, projection, action);
+    }
+
+    public long forEach(Filter filter, Projection projection, Consumer<? super Row> action) throws IOException {
+        // Rows go to action on executor threads as soon as they are decoded, so action has to be thread-safe.
+        return schedulerOf(filter, projection).forEach(prepare(), action);
+    }
+
+    private ChunkScheduler<Chunk> schedulerOf(Filter filter, Projection projection) {
+        return new ChunkScheduler<>(executor, maxPendingChunks, (chunk, action, aborted) -> decode(chunk, filter, projection, action, aborted));
+    }
+
+    private List<Chunk> prepare() throws IOException {
+        List<Chunk> chunks = split();
+        List<CompletableFuture<Void>> scans = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            scans.add(CompletableFuture.runAsync(() -> scan(chunk), executor));
+        }
+        for (CompletableFuture<Void> scan : scans) {
+            ChunkScheduler.join(scan);
+        }
+        // Prefix sums of line counts give first indices, and the last header seen so far is each chunk's schema.
+        int lines = 0;
+        Schema schema = null;
+        AsciiDictionary dictionary = new AsciiDictionary();
+        for (Chunk chunk : chunks) {
+            chunk.firstIndex = lines;
+            chunk.schema = schema;
+            chunk.dictionary = new AsciiDictionary(dictionary);
+            if (chunk.lastHeader != null) {
+                try {
+                    schema = Codec.decodeSchema(chunk.lastHeader);
+                }
+                catch (IllegalArgumentException exception) {
+                    throw new RowDecodeException(lines + chunk.lastHeaderLine, exception);
+                }
+            }
+            if (chunk.reset) {
+                dictionary.clear();
+            }
+            for (int cur = 0; cur < chunk.definitions.size(); ++cur) {
+                try {
+                    Codec.decodeDictionary(chunk.definitions.get(cur), dictionary);
+                }
+                catch (IllegalArgumentException exception) {
+                    throw new RowDecodeException(lines + chunk.definitionLines.get(cur), exception);
+                }
+            }
+            lines = Math.addExact(lines, chunk.lines);
+        }
+        return chunks;
+    }
+
+    private List<Chunk> split() throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(start + chunkSize - 1, probe);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private long nextLineStart(long from, ByteBuffer probe) throws IOException {
+        // Position after the first '\n' at or after from, or the file size.
+        long position = from;
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int index = 0; index < read; ++index) {
+                if (probe.get(index) == '\n') {
+                    return position + index + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private void scan(Chunk chunk) {
+        MappedByteBuffer buffer = map(chunk);
+        AsciiSequence line = new AsciiSequence();
+        int limit = buffer.limit();
+        int from = 0;
+        int lines = 0;
+        while (from < limit) {
+            int n = Lines.indexOfNewline(buffer, from, limit);
+            int end = n == -1 ? limit : n;
+            if (buffer.get(from) == '#') {
+                int to = Lines.trimCarriageReturn(buffer, from, end);
+                byte[] header = new byte[to - from];
+                buffer.get(from, header);
+                chunk.lastHeader = new String(header, StandardCharsets.ISO_8859_1);
+                chunk.lastHeaderLine = lines;
+            }
+            else if (from < end && buffer.get(from) == '$') {
+                int to = Lines.trimCarriageReturn(buffer, from, end);
+                line.wrap(buffer, from, to - from);
+                if (Codec.isDictionary(line)) {
+                    if (line.length() == 1) {
+                        chunk.reset = true;
+                        chunk.definitions.clear();
+                        chunk.definitionLines.clear();
+                    }
+                    else {
+                        chunk.definitions.add(line.toString());
+                        chunk.definitionLines.add(lines);
+                    }
+                }
+            }
+            ++lines;
+            from = end + 1;
+        }
+        chunk.lines = lines;
+    }
+
+    private long decode(Chunk chunk, Filter filter, Projection projection, Consumer<? super Row> action, AtomicBoolean aborted) {
+        // Running chunks stop early once the caller gave up on a failure elsewhere.
+        MappedByteBuffer buffer = map(chunk);
+        AsciiSequence line = new AsciiSequence();
+        LineDecoder decoder = new LineDecoder(chunk.schema, chunk.dictionary);
+        int limit = buffer.limit();
+        int from = 0;
+        int index = chunk.firstIndex;
+        long count = 0;
+        for (; from < limit && !aborted.get(); ++index) {
+            int n = Lines.indexOfNewline(buffer, from, limit);
+            int end = n == -1 ? limit : n;
+            int to = Lines.trimCarriageReturn(buffer, from, end);
+            line.wrap(buffer, from, to - from);
+            from = end + 1;
+            if (!decoder.apply(line, index)) {
+                continue;
+            }
+            Row row = decoder.decode(line, filter, projection, index);
+            if (row != null) {
+                action.accept(row);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private MappedByteBuffer map(Chunk chunk) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+        catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static class Chunk {
+        private final long start;
+        private final long end;
+        // Filled by the scan pass.
+        private int lines;
+        private String lastHeader;
+        private int lastHeaderLine;
+        private boolean reset;
+        private final List<String> definitions = new ArrayList<>();
+        private final List<Integer> definitionLines = new ArrayList<>();
+        // Filled from prefix sums before decoding.
+        private int firstIndex;
+        private Schema schema;
+        private AsciiDictionary dictionary;
+
+        Chunk(long chunkStart, long chunkEnd) {
+            start = chunkStart;
+            end = chunkEnd;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package io.textor.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sidecar index from line number to the byte offset the line starts at, kept in a '.tidx' file next to the Textor
+ * file. Lines are grouped in blocks of a fixed number of lines, so line N is in block N / blockSize, and finding it
+ * takes one block read.
+ * <p>
+ * A block has a header of the offset of its first line, the offset of the schema header line in effect before it
+ * (-1 for none), the offset after its last line, the last dictionary reset line before it (-1 for none), its line
+ * count and payload length. The payload has one varint per line, the distance from the previous line start shifted
+ * left by two, with the kind of line in the low bits. Only lines ending with '\n' are indexed, lines after the index
+ * are found by reading on from its end.
+ */
+public class RowIndex implements Closeable {
+    private final static int magic = 0x54494458 /* TIDX */;
+    private final static int version = 2;
+    private final static int fileHeaderSize = 12;
+    private final static int blockHeaderSize = 36;
+    private final static int defaultBlockSize = 1024;
+    // Kinds of line.
+    final static int rowLine = 0;
+    final static int schemaLine = 1;
+    final static int definitionLine = 2;
+    final static int resetLine = 3;
+
+    private final FileChannel channel;
+    private final int blockSize;
+    private final boolean writable;
+    // Directory of written blocks.
+    private long[] blockPositions = new long[16];
+    private long[] schemaOffsets = new long[16];
+    private int[] resetLines = new int[16];
+    private int blockCount;
+    private long writtenEnd;
+    // Decoded entries of the block last looked up.
+    private final long[] offsets;
+    private final byte[] kinds;
+    private int decodedBlock = -1;
+    // Block being appended, written out when full or on close.
+    private final ByteBuffer pending;
+    private int pendingCount;
+    private long pendingFirstOffset;
+    private long pendingSchemaOffset = -1;
+    private int pendingResetLine = -1;
+    private long lastOffset;
+    private long schemaOffset = -1;
+    private int lastResetLine = -1;
+    private long endOffset;
+    // Kind of the line catchUp stopped in, and whether it is still telling a dictionary line from a row.
+    private int tailKind;
+    private boolean tailDictionary;
+
+    private RowIndex(FileChannel indexChannel, int lineBlockSize, boolean forAppend) {
+        channel = indexChannel;
+        blockSize = lineBlockSize;
+        writable = forAppend;
+        offsets = new long[blockSize];
+        kinds = new byte[blockSize];
+        pending = ByteBuffer.allocate(blockHeaderSize + blockSize * 10);
+    }
+
+    public static Path pathOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tidx");
+    }
+
+    public static RowIndex open(Path file) throws IOException {
+        // Returns null if the file has no index, or the index doesn't fit the file any more.
+        Path path = pathOf(file);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            RowIndex index = load(channel, false);
+            if (index == null || index.endOffset > Files.size(file)) {
+                channel.close();
+                return null;
+            }
+            return index;
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    static RowIndex openForAppend(Path file, FileChannel data, long dataSize) throws IOException {
+        // Loads what the index has and catches up with lines appended without it, or starts over if it doesn't fit
+        // the file.
+        FileChannel channel = FileChannel.open(pathOf(file), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            RowIndex index = load(channel, true);
+            if (index == null || index.endOffset > dataSize) {
+                index = new RowIndex(channel, defaultBlockSize, true);
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(fileHeaderSize).putInt(magic).putInt(version).putInt(index.blockSize).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                index.writtenEnd = fileHeaderSize;
+            }
+            index.catchUp(data, dataSize);
+            return index;
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    private static RowIndex load(FileChannel channel, boolean forAppend) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(blockHeaderSize);
+        if (size < fileHeaderSize || readFully(channel, header.limit(fileHeaderSize), 0) < fileHeaderSize) {
+            return null;
+        }
+        header.flip();
+        if (header.getInt() != magic || header.getInt() != version) {
+            return null;
+        }
+        int blockSize = header.getInt();
+        if (blockSize <= 0 || blockSize > 1 << 20) {
+            return null;
+        }
+        RowIndex index = new RowIndex(channel, blockSize, forAppend);
+        long position = fileHeaderSize;
+        // Blocks are read up to the first torn or partial one, a partial block can only be the last.
+        while (position + blockHeaderSize <= size) {
+            header.clear();
+            if (readFully(channel, header, position) < blockHeaderSize) {
+                break;
+            }
+            header.flip();
+            long first = header.getLong();
+            long schema = header.getLong();
+            long end = header.getLong();
+            int reset = header.getInt();
+            int count = header.getInt();
+            int length = header.getInt();
+            if (count <= 0 || count > blockSize || length <= 0 || length > blockSize * 10 || position + blockHeaderSize + length > size) {
+                break;
+            }
+            index.addBlock(position, schema, reset);
+            index.endOffset = end;
+            index.writtenEnd = position + blockHeaderSize + length;
+            if (count < blockSize) {
+                // Taken back as the pending block, an appending index rewrites it once full.
+                index.pending.clear().position(blockHeaderSize);
+                readFully(channel, index.pending.limit(blockHeaderSize + length), position + blockHeaderSize);
+                index.pending.limit(index.pending.capacity());
+                index.pendingCount = count;
+                index.pendingFirstOffset = first;
+                index.pendingSchemaOffset = schema;
+                index.pendingResetLine = reset;
+                --index.blockCount;
+                index.writtenEnd = position;
+                break;
+            }
+            position = index.writtenEnd;
+        }
+        if (forAppend) {
+            channel.truncate(index.writtenEnd);
+            index.restoreTail();
+        }
+        return index;
+    }
+
+    private void restoreTail() throws IOException {
+        // Last line start, schema and dictionary reset in effect at the end, taken from the last block.
+        int block = pendingCount > 0 ? blockCount : blockCount - 1;
+        if (block < 0) {
+            return;
+        }
+        int count = block == blockCount ? pendingCount : blockSize;
+        decodeBlock(block, count);
+        lastOffset = offsets[count - 1];
+        schemaOffset = block == blockCount ? pendingSchemaOffset : schemaOffsets[block];
+        lastResetLine = block == blockCount ? pendingResetLine : resetLines[block];
+        for (int cur = 0; cur < count; ++cur) {
+            if (kinds[cur] == schemaLine) {
+                schemaOffset = offsets[cur];
+            }
+            else if (kinds[cur] == resetLine) {
+                lastResetLine = block * blockSize + cur;
+            }
+        }
+        decodedBlock = -1;
+    }
+
+    public int getLineCount() {
+        return blockCount * blockSize + pendingCount;
+    }
+
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public long offsetOf(int line) throws IOException {
+        locate(line);
+        return offsets[line % blockSize];
+    }
+
+    public long schemaOffsetOf(int line) throws IOException {
+        // Offset of the last schema header line before line, or -1 if there is none.
+        locate(line);
+        int block = line / blockSize;
+        long schema = block == blockCount ? pendingSchemaOffset : schemaOffsets[block];
+        for (int cur = 0; cur < line % blockSize; ++cur) {
+            if (kinds[cur] == schemaLine) {
+                schema = offsets[cur];
+            }
+        }
+        return schema;
+    }
+
+    int kindOf(int line) throws IOException {
+        locate(line);
+        return kinds[line % blockSize];
+    }
+
+    int dictionaryResetOf(int line) throws IOException {
+        // Last dictionary reset line before line, or -1 if there is none. Definitions in effect at line are on the
+        // lines after it.
+        locate(line);
+        int block = line / blockSize;
+        int reset = block == blockCount ? pendingResetLine : resetLines[block];
+        for (int cur = 0; cur < line % blockSize; ++cur) {
+            if (kinds[cur] == resetLine) {
+                reset = block * blockSize + cur;
+            }
+        }
+        return reset;
+    }
+
+    private void locate(int line) throws IOException {
+        if (line < 0 || line >= getLineCount()) {
+            throw new IllegalArgumentException("Line " + line + " is not indexed.");
+        }
+        int block = line / blockSize;
+        if (block != decodedBlock) {
+            decodeBlock(block, block == blockCount ? pendingCount : blockSize);
+        }
+    }
+
+    private void decodeBlock(int block, int count) throws IOException {
+        ByteBuffer bytes;
+        long offset;
+        if (block == blockCount) {
+            bytes = pending.duplicate().flip().position(blockHeaderSize);
+            offset = pendingFirstOffset;
+        }
+        else {
+            ByteBuffer header = ByteBuffer.allocate(blockHeaderSize);
+            readFully(channel, header, blockPositions[block]);
+            header.flip();
+            offset = header.getLong();
+            header.position(32);
+            bytes = ByteBuffer.allocate(header.getInt());
+            readFully(channel, bytes, blockPositions[block] + blockHeaderSize);
+            bytes.flip();
+        }
+        for (int cur = 0; cur < count; ++cur) {
+            long entry = readVarLong(bytes);
+            offset += entry >>> 2;
+            offsets[cur] = offset;
+            kinds[cur] = (byte)(entry & 3);
+        }
+        decodedBlock = block;
+    }
+
+    void add(long offset, long end, int kind) throws IOException {
+        // Called by the writer for every line it appends, in order.
+        if (pendingCount == 0) {
+            pending.clear().position(blockHeaderSize);
+            pendingFirstOffset = offset;
+            pendingSchemaOffset = schemaOffset;
+            pendingResetLine = lastResetLine;
+            lastOffset = offset;
+        }
+        writeVarLong(pending, (offset - lastOffset) << 2 | kind);
+        lastOffset = offset;
+        endOffset = end;
+        if (kind == schemaLine) {
+            schemaOffset = offset;
+        }
+        else if (kind == resetLine) {
+            lastResetLine = getLineCount();
+        }
+        if (decodedBlock == blockCount) {
+            decodedBlock = -1;
+        }
+        if (++pendingCount == blockSize) {
+            writePending();
+            addBlock(writtenEnd, pendingSchemaOffset, pendingResetLine);
+            writtenEnd += pending.limit();
+            pendingCount = 0;
+        }
+    }
+
+    void terminateTail(long dataSize) throws IOException {
+        // The writer ends an unterminated last line with '\n', which makes it a line to index.
+        if (endOffset < dataSize) {
+            add(endOffset, dataSize + 1, tailDictionary && tailKind == definitionLine ? rowLine : tailKind);
+        }
+    }
+
+    private void writePending() throws IOException {
+        int length = pending.position() - blockHeaderSize;
+        pending.putLong(0, pendingFirstOffset)
+                .putLong(8, pendingSchemaOffset)
+                .putLong(16, endOffset)
+                .putInt(24, pendingResetLine)
+                .putInt(28, pendingCount)
+                .putInt(32, length)
+                .flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending, writtenEnd + pending.position());
+        }
+    }
+
+    private void catchUp(FileChannel data, long dataSize) throws IOException {
+        // Indexes lines from the end of the index up to the last '\n' of data.
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long lineStart = endOffset;
+        long position = endOffset;
+        while (position < dataSize) {
+            buffer.clear();
+            int read = data.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int cur = 0; cur < read; ++cur) {
+                byte b = buffer.get(cur);
+                if (position + cur == lineStart) {
+                    tailKind = b == '#' ? schemaLine : b == '$' ? resetLine : rowLine;
+                    tailDictionary = b == '$';
+                }
+                else if (tailDictionary) {
+                    // A lone '$' is a reset and $digits= a definition, anything else a row starting with a $id.
+                    if (b >= '0' && b <= '9') {
+                        tailKind = definitionLine;
+                    }
+                    else if (b == '=' && tailKind == definitionLine || b == '\r' && tailKind == resetLine) {
+                        tailDictionary = false;
+                    }
+                    else if (b != '\n') {
+                        tailKind = rowLine;
+                        tailDictionary = false;
+                    }
+                }
+                if (b == '\n') {
+                    if (tailDictionary && tailKind == definitionLine) {
+                        tailKind = rowLine;
+                    }
+                    add(lineStart, position + cur + 1, tailKind);
+                    lineStart = position + cur + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private void addBlock(long position, long schema, int reset) {
+        if (blockCount == blockPositions.length) {
+            blockPositions = Arrays.copyOf(blockPositions, blockCount * 2);
+            schemaOffsets = Arrays.copyOf(schemaOffsets, blockCount * 2);
+            resetLines = Arrays.copyOf(resetLines, blockCount * 2);
+        }
+        blockPositions[blockCount] = position;
+        schemaOffsets[blockCount] = schema;
+        resetLines[blockCount] = reset;
+        ++blockCount;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            // A partial block is written on close only, and taken back on the next open.
+            if (writable && pendingCount > 0) {
+                writePending();
+            }
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
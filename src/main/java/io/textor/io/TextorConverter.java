@@ -0,0 +1,32 @@
+package io.textor.io;
+
+import io.textor.Row;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Rewrites a Textor file between the self-describing form, where every cell carries its key header, and the schema
+ * header form. Rows are appended to target in order with their values, and row indices follow the lines of target.
+ */
+public class TextorConverter {
+    public static long toSchemaHeaders(Path source, Path target) throws IOException {
+        return convert(source, target, true);
+    }
+
+    public static long toSelfDescribing(Path source, Path target) throws IOException {
+        return convert(source, target, false);
+    }
+
+    private static long convert(Path source, Path target, boolean schemaHeaders) throws IOException {
+        long count = 0;
+        try (TextorReader reader = new TextorReader(source); TextorWriter writer = new TextorWriter(target, schemaHeaders)) {
+            Row row;
+            while ((row = reader.read()) != null) {
+                writer.append(row);
+                ++count;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,263 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.codec.AsciiSequence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the rows of a Textor file or stream to {@link Flow.Subscriber}s. Rows are decoded only as they are
+ * requested, on the executor, and at most batch-size rows per task before the task gives the thread back, so memory
+ * doesn't grow with a slow subscriber. A row that fails to decode ends the subscription with onError carrying a
+ * {@link RowDecodeException}.
+ * <p>
+ * A file publisher reads the file again for every subscriber, a stream publisher takes one subscriber only.
+ */
+public class TextorPublisher implements Flow.Publisher<Row> {
+    private final static int defaultBatchSize = 256;
+
+    private final Path path;
+    private final InputStream stream;
+    private final AtomicBoolean streamTaken = new AtomicBoolean();
+    private final Executor executor;
+    private final int batchSize;
+
+    public TextorPublisher(Path path) {
+        this(path, ForkJoinPool.commonPool(), defaultBatchSize);
+    }
+
+    public TextorPublisher(Path path, Executor executor, int batchSize) {
+        this(Objects.requireNonNull(path), null, executor, batchSize);
+    }
+
+    public TextorPublisher(InputStream stream) {
+        this(stream, ForkJoinPool.commonPool(), defaultBatchSize);
+    }
+
+    public TextorPublisher(InputStream stream, Executor executor, int batchSize) {
+        this(null, Objects.requireNonNull(stream), executor, batchSize);
+    }
+
+    private TextorPublisher(Path path, InputStream stream, Executor executor, int batchSize) {
+        if (executor == null || batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal publisher parameters (" + executor + "," + batchSize + ").");
+        }
+        this.path = path;
+        this.stream = stream;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Row> subscriber) {
+        Objects.requireNonNull(subscriber);
+        RowSubscription subscription = new RowSubscription(subscriber);
+        // A second stream subscriber fails before it can request anything.
+        boolean rejected = stream != null && !streamTaken.compareAndSet(false, true);
+        if (rejected) {
+            subscription.failure = new IllegalStateException("Stream publisher has a subscriber already.");
+        }
+        subscriber.onSubscribe(subscription);
+        if (rejected) {
+            subscription.schedule();
+        }
+    }
+
+    private RowSource open() throws IOException {
+        if (stream != null) {
+            return new StreamSource(stream);
+        }
+        TextorReader reader = new TextorReader(path);
+        return new RowSource() {
+            @Override
+            public Row read() throws IOException {
+                return reader.read();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private interface RowSource extends Closeable {
+        Row read() throws IOException;
+    }
+
+    private static class StreamSource implements RowSource {
+        // Splits the stream into lines the way TextorReader splits a file.
+        private final InputStream stream;
+        private final AsciiSequence line = new AsciiSequence();
+        private ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN).flip();
+        private boolean ended;
+        private int lineNumber;
+        private final LineDecoder decoder = new LineDecoder();
+
+        private StreamSource(InputStream input) {
+            stream = input;
+        }
+
+        @Override
+        public Row read() throws IOException {
+            while (true) {
+                int from = buffer.position();
+                int n = Lines.indexOfNewline(buffer, from, buffer.limit());
+                if (n == -1 && !ended) {
+                    fill();
+                    continue;
+                }
+                if (n == -1 && from == buffer.limit()) {
+                    return null;
+                }
+                int end = n == -1 ? buffer.limit() : n;
+                int to = Lines.trimCarriageReturn(buffer, from, end);
+                int index = lineNumber++;
+                buffer.position(n == -1 ? end : end + 1);
+                line.wrap(buffer, from, to - from);
+                if (decoder.apply(line, index)) {
+                    return decoder.decode(line, null, null, index);
+                }
+            }
+        }
+
+        private void fill() throws IOException {
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                // The line fills the whole buffer, so grow it.
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN).put(buffer.flip());
+            }
+            int read = stream.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            if (read < 0) {
+                ended = true;
+            }
+            else {
+                buffer.position(buffer.position() + read);
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+
+    private class RowSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super Row> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        // Signals since the drain task last looked, the task is scheduled while this is non-zero.
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+        // Set by the drain task, and read by signals too.
+        private volatile boolean done;
+        // Only touched by the drain task.
+        private RowSource source;
+
+        private RowSubscription(Flow.Subscriber<? super Row> rowSubscriber) {
+            subscriber = rowSubscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Illegal request of " + n + " rows."));
+                return;
+            }
+            requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void fail(Throwable throwable) {
+            failure = throwable;
+            schedule();
+        }
+
+        private void schedule() {
+            // Signals after the end, like a request from onComplete or after the executor is shut down, need no task.
+            if (done) {
+                return;
+            }
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = pending.get();
+            if (!done) {
+                drain();
+            }
+            if (!done && !cancelled && failure == null && requested.get() > 0) {
+                // More rows are requested, they go in the next task so that other tasks get the thread meanwhile.
+                executor.execute(this);
+                return;
+            }
+            if (pending.addAndGet(-missed) != 0 && !done) {
+                executor.execute(this);
+            }
+        }
+
+        private void drain() {
+            try {
+                for (int emitted = 0; emitted < batchSize && !cancelled && failure == null && requested.get() > 0; ++emitted) {
+                    if (source == null) {
+                        source = open();
+                    }
+                    Row row = source.read();
+                    if (row == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    requested.decrementAndGet();
+                    subscriber.onNext(row);
+                }
+                if (cancelled) {
+                    finish();
+                }
+                else if (failure != null) {
+                    finish();
+                    subscriber.onError(failure);
+                }
+            }
+            catch (IOException | RuntimeException exception) {
+                finish();
+                subscriber.onError(exception);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (source != null) {
+                try {
+                    source.close();
+                }
+                catch (IOException exception) {
+                    // The subscriber is done with the rows, so a failed close has nobody to go to.
+                }
+            }
+        }
+    }
+}
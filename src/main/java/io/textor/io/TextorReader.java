@@ -0,0 +1,288 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.codec.AsciiSequence;
+import io.textor.codec.Filter;
+import io.textor.codec.Projection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads rows from a Textor file through memory-mapped windows, one row per line and row index is the zero-based
+ * line number. Lines are decoded in place from the mapped bytes. A schema header line is not a row, rows after it
+ * carry values only.
+ * <p>
+ * {@link #seek(int)} goes to a line through the {@link RowIndex} sidecar if the file has one, and by reading lines
+ * from the start or the end of the index otherwise. Dictionary lines are applied as they are read, and a seek
+ * through the index replays the definitions since the last dictionary reset before the line.
+ */
+public class TextorReader implements Iterable<Row>, Closeable {
+    private final static long defaultWindowSize = 1L << 28;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final AsciiSequence line = new AsciiSequence();
+    private long windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private int lineNumber;
+    private int lineIndex = -1;
+    private final LineDecoder decoder = new LineDecoder();
+    private RowIndex rowIndex;
+    private boolean rowIndexOpened;
+
+    public TextorReader(Path path) throws IOException {
+        this(path, defaultWindowSize);
+    }
+
+    public TextorReader(Path path, long mapWindowSize) throws IOException {
+        this(path, mapWindowSize, Long.MAX_VALUE);
+    }
+
+    public TextorReader(Path path, long mapWindowSize, long endOffset) throws IOException {
+        // Only the bytes before endOffset are read, as if the file ended there.
+        if (mapWindowSize <= 0 || mapWindowSize > Integer.MAX_VALUE || endOffset < 0) {
+            throw new IllegalArgumentException("Illegal reader parameters (" + mapWindowSize + "," + endOffset + ").");
+        }
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = Math.min(channel.size(), endOffset);
+        windowSize = mapWindowSize;
+    }
+
+    public Row read() throws IOException {
+        return read(null);
+    }
+
+    public Row read(Projection projection) throws IOException {
+        return read(null, projection);
+    }
+
+    public Row read(Filter filter, Projection projection) throws IOException {
+        // Lines the filter rejects are skipped before anything is decoded, then only projected cells are decoded.
+        // Either can be null for all rows or all cells.
+        CharSequence next;
+        while ((next = readLine()) != null) {
+            Row row = decode(next, filter, projection);
+            if (row != null) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    public Row readRow(int index) throws IOException {
+        // Returns the row on line index, or null if that line is blank, a schema header or past the end.
+        seek(index);
+        if (lineNumber != index || position >= size) {
+            return null;
+        }
+        CharSequence next = nextLine();
+        return next == null ? null : decode(next, null, null);
+    }
+
+    public List<Row> readRows(int from, int to) throws IOException {
+        // Returns the rows on lines [from, to), and leaves the reader at line to.
+        if (from > to) {
+            throw new IllegalArgumentException("Illegal line range [" + from + "," + to + ").");
+        }
+        List<Row> rows = new ArrayList<>();
+        seek(from);
+        while (lineNumber < to && position < size) {
+            CharSequence next = nextLine();
+            if (next != null) {
+                rows.add(decode(next, null, null));
+            }
+        }
+        return rows;
+    }
+
+    public void seek(int index) throws IOException {
+        // Moves to line index, or to the end if the file has fewer lines, so that the next read starts there.
+        if (index < 0) {
+            throw new IllegalArgumentException("Illegal line index: " + index + ".");
+        }
+        if (!rowIndexOpened) {
+            rowIndex = RowIndex.open(path);
+            rowIndexOpened = true;
+        }
+        int known = rowIndex != null && rowIndex.getLineCount() > 0 ? Math.min(index, rowIndex.getLineCount() - 1) : -1;
+        if (known >= 0 && rowIndex.offsetOf(known) <= size) {
+            // Lines indexed past the end offset are not used.
+            if (index < lineNumber || known > lineNumber) {
+                moveTo(rowIndex.offsetOf(known), known, rowIndex.schemaOffsetOf(known));
+            }
+        }
+        else if (index < lineNumber) {
+            moveTo(0, 0, -1);
+        }
+        while (lineNumber < index && position < size) {
+            nextLine();
+        }
+    }
+
+    private void moveTo(long offset, int index, long schemaOffset) throws IOException {
+        decoder.reset();
+        if (schemaOffset >= 0) {
+            position = schemaOffset;
+            if (nextLine() != null || decoder.getSchema() == null) {
+                throw new IOException("Row index has no schema header at position " + schemaOffset + ".");
+            }
+        }
+        if (offset > 0 && rowIndex != null) {
+            // Replays the definitions in effect at line index.
+            for (int cur = rowIndex.dictionaryResetOf(index) + 1; cur < index; ++cur) {
+                if (rowIndex.kindOf(cur) == RowIndex.definitionLine) {
+                    position = rowIndex.offsetOf(cur);
+                    lineNumber = cur;
+                    if (nextLine() != null) {
+                        throw new IOException("Row index has no dictionary definition at position " + rowIndex.offsetOf(cur) + ".");
+                    }
+                }
+            }
+        }
+        position = offset;
+        lineNumber = index;
+    }
+
+    public CharSequence readLine() throws IOException {
+        // Returns the next non-blank row line without decoding it, the view is only valid until the next read.
+        // Schema headers are taken in here, and rows up to the next header are decoded with getSchema().
+        while (position < size) {
+            CharSequence next = nextLine();
+            if (next != null) {
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private CharSequence nextLine() throws IOException {
+        // Reads one line, blank, schema header and dictionary lines return null.
+        long end = findLineEnd(position);
+        int from = (int)(position - windowStart);
+        int to = Lines.trimCarriageReturn(window, from, (int)(end - windowStart));
+        int index = lineNumber++;
+        position = end + 1;
+        line.wrap(window, from, to - from);
+        if (!decoder.apply(line, index)) {
+            return null;
+        }
+        lineIndex = index;
+        return line;
+    }
+
+    private Row decode(CharSequence next, Filter filter, Projection projection) {
+        // Returns null if the filter rejects the row.
+        return decoder.decode(next, filter, projection, lineIndex);
+    }
+
+    public Schema getSchema() {
+        return decoder.getSchema();
+    }
+
+    public AsciiDictionary getDictionary() {
+        // Dictionary in effect for the line last read, rows from readLine() are decoded with it.
+        return decoder.getDictionary();
+    }
+
+    public int getLineIndex() {
+        return lineIndex;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    private long findLineEnd(long from) throws IOException {
+        // Returns the file position of the '\n' ending the line, or the file size for the last unterminated line.
+        while (true) {
+            if (window == null || from < windowStart || from >= windowStart + window.limit()) {
+                map(from);
+            }
+            int n = Lines.indexOfNewline(window, (int)(from - windowStart), window.limit());
+            if (n != -1) {
+                return windowStart + n;
+            }
+            if (windowStart + window.limit() >= size) {
+                return size;
+            }
+            if (from == windowStart) {
+                // The line doesn't fit in a window, so grow the window.
+                if (windowSize == Integer.MAX_VALUE) {
+                    throw new IOException("Line at position " + from + " exceeds " + Integer.MAX_VALUE + " bytes.");
+                }
+                windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+            }
+            map(from);
+        }
+    }
+
+    private void map(long from) throws IOException {
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(windowSize, size - from));
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = from;
+    }
+
+    @Override
+    public Iterator<Row> iterator() {
+        return new Iterator<>() {
+            private Row next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = read();
+                    }
+                    catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Row row = next;
+                next = null;
+                return row;
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        try {
+            if (rowIndex != null) {
+                rowIndex.close();
+            }
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.codec.AsciiSequence;
+import io.textor.codec.Codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a Textor file as lines are appended to it, and returns rows as their lines complete. A last line without
+ * '\n' yet is left in the buffer until the rest of it arrives.
+ * <p>
+ * While no line is available, the tailer waits on a {@link WatchService} of the file directory with a timeout that
+ * starts at min-poll and doubles up to max-poll, so a missed or slow watch event costs at most max-poll. Any new line
+ * takes the timeout back to min-poll.
+ * <p>
+ * {@link #commit()} saves the position after the last row returned to a checkpoint file, with the line number and the
+ * schema header and the dictionary definitions in effect, and a new tailer on the same checkpoint resumes from there.
+ */
+public class TextorTailer implements Closeable {
+    private final static Duration defaultMinPoll = Duration.ofMillis(1);
+    private final static Duration defaultMaxPoll = Duration.ofMillis(100);
+    private final static int defaultBufferSize = 1 << 16;
+
+    private final Path checkpoint;
+    private final FileChannel channel;
+    private final WatchService watcher;
+    private final long minPollNanos;
+    private final long maxPollNanos;
+    private final AsciiSequence line = new AsciiSequence();
+    // Unread bytes are between position and limit of buffer, and readOffset is the file position after them.
+    private ByteBuffer buffer;
+    private long readOffset;
+    // File position and line number after the last line taken, and the schema header in effect there.
+    private long position;
+    private int lineNumber;
+    private LineDecoder decoder = new LineDecoder();
+    private String schemaLine = "";
+    private final List<String> definitionLines = new ArrayList<>();
+    private long pollNanos;
+
+    public TextorTailer(Path path) throws IOException {
+        this(path, null);
+    }
+
+    public TextorTailer(Path path, Path checkpoint) throws IOException {
+        this(path, checkpoint, defaultMinPoll, defaultMaxPoll);
+    }
+
+    public TextorTailer(Path path, Path checkpoint, Duration minPoll, Duration maxPoll) throws IOException {
+        // Without a checkpoint, or before the first commit, the file is followed from its start.
+        if (minPoll == null || maxPoll == null || minPoll.isNegative() || minPoll.isZero() || maxPoll.compareTo(minPoll) < 0) {
+            throw new IllegalArgumentException("Illegal tailer poll range (" + minPoll + "," + maxPoll + ").");
+        }
+        this.checkpoint = checkpoint;
+        minPollNanos = pollNanos = minPoll.toNanos();
+        maxPollNanos = maxPoll.toNanos();
+        buffer = ByteBuffer.allocate(defaultBufferSize).order(ByteOrder.LITTLE_ENDIAN).flip();
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            restore();
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < position) {
+                throw new IOException("File is shorter than checkpoint position " + position + ".");
+            }
+            readOffset = position;
+            watcher = path.getFileSystem().newWatchService();
+            try {
+                path.toAbsolutePath().getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+            }
+            catch (IOException | RuntimeException exception) {
+                watcher.close();
+                throw exception;
+            }
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    public Row poll(Duration timeout) throws IOException {
+        // Returns the next row, or null if no line completes within timeout.
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            Row row = next();
+            if (row != null) {
+                return row;
+            }
+            long remains = deadline - System.nanoTime();
+            if (remains <= 0) {
+                return null;
+            }
+            await(Math.min(pollNanos, remains));
+        }
+    }
+
+    public Row take() throws IOException {
+        Row row;
+        while ((row = next()) == null) {
+            await(pollNanos);
+        }
+        return row;
+    }
+
+    public void commit() throws IOException {
+        if (checkpoint == null) {
+            throw new IllegalStateException("Tailer has no checkpoint.");
+        }
+        // Written aside and moved over the checkpoint, so a crash leaves the old or the new one.
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        StringBuilder content = new StringBuilder().append(position).append(',').append(lineNumber).append('\n').append(schemaLine).append('\n');
+        for (String definition : definitionLines) {
+            content.append(definition).append('\n');
+        }
+        Files.write(temporary, content.toString().getBytes(StandardCharsets.US_ASCII), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public Schema getSchema() {
+        return decoder.getSchema();
+    }
+
+    private void restore() throws IOException {
+        List<String> lines = Files.readAllLines(checkpoint, StandardCharsets.US_ASCII);
+        try {
+            String[] state = lines.get(0).split(",");
+            position = Long.parseLong(state[0]);
+            lineNumber = Integer.parseInt(state[1]);
+            schemaLine = lines.size() > 1 ? lines.get(1) : "";
+            AsciiDictionary dictionary = new AsciiDictionary();
+            for (String definition : lines.subList(Math.min(2, lines.size()), lines.size())) {
+                Codec.decodeDictionary(definition, dictionary);
+                definitionLines.add(definition);
+            }
+            decoder = new LineDecoder(schemaLine.isEmpty() ? null : Codec.decodeSchema(schemaLine), dictionary);
+        }
+        catch (IndexOutOfBoundsException | IllegalArgumentException exception) {
+            throw new IOException("Illegal tailer checkpoint " + checkpoint + ".", exception);
+        }
+        if (position < 0 || lineNumber < 0) {
+            throw new IOException("Illegal tailer checkpoint " + checkpoint + ".");
+        }
+    }
+
+    private Row next() throws IOException {
+        // Returns the row of the next complete line, or null if there is none yet.
+        while (true) {
+            int from = buffer.position();
+            int n = Lines.indexOfNewline(buffer, from, buffer.limit());
+            if (n == -1) {
+                if (!fill()) {
+                    return null;
+                }
+                continue;
+            }
+            int to = Lines.trimCarriageReturn(buffer, from, n);
+            int index = lineNumber++;
+            position += n + 1 - from;
+            buffer.position(n + 1);
+            pollNanos = minPollNanos;
+            line.wrap(buffer, from, to - from);
+            if (decoder.apply(line, index)) {
+                return decoder.decode(line, null, null, index);
+            }
+            // The header and the definitions since the last reset go to the checkpoint, what follows needs them.
+            if (Codec.isSchema(line)) {
+                schemaLine = line.toString();
+            }
+            else if (Codec.isDictionary(line)) {
+                if (line.length() == 1) {
+                    definitionLines.clear();
+                }
+                else {
+                    definitionLines.add(line.toString());
+                }
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        // Reads what was appended after readOffset, and returns false if nothing was.
+        long size = channel.size();
+        if (size < readOffset) {
+            throw new IOException("File was truncated to " + size + " bytes below position " + readOffset + ".");
+        }
+        if (size == readOffset) {
+            return false;
+        }
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            // The partial line fills the whole buffer, so grow it.
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN).put(buffer.flip());
+        }
+        int read = channel.read(buffer, readOffset);
+        buffer.flip();
+        if (read <= 0) {
+            return false;
+        }
+        readOffset += read;
+        return true;
+    }
+
+    private void await(long nanos) throws IOException {
+        try {
+            WatchKey key = watcher.poll(nanos, TimeUnit.NANOSECONDS);
+            if (key != null) {
+                // Any event in the directory only means the file is worth checking again.
+                key.pollEvents();
+                key.reset();
+            }
+            else {
+                pollNanos = Math.min(pollNanos * 2, maxPollNanos);
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for lines.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            watcher.close();
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Cell;
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.ValueType;
+import io.textor.codec.Codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends encoded rows to a Textor file through a direct buffer, one row per line.
+ * <p>
+ * {@link #append(Row)} only buffers the row. {@link #commit(int)} makes it durable with group commit: the first
+ * committer becomes the leader and waits until max-batch-size rows are pending or max-latency elapses, then one
+ * {@link FileChannel#force(boolean)} covers every row appended so far and releases all committers waiting on them.
+ * <p>
+ * With schema headers on, rows are written values-only and a schema header line goes before every row whose columns
+ * differ from the last header. Header lines count as lines, so row indices stay the line numbers a reader sees.
+ * <p>
+ * With the row index on, the start offset of every line goes into the {@link RowIndex} sidecar as it is appended.
+ * <p>
+ * With the dictionary on, an ASCII value seen a second time gets an id, a definition line for it goes before the row
+ * and rows write $id in place of the value from then on. The dictionary is reset with a lone '$' line every
+ * reset-interval lines or when it is full, so a reader seeking to a line replays a bounded number of definitions.
+ * Rows are then encoded under the lock, as the dictionary decides their encoding.
+ */
+public class TextorWriter implements Closeable {
+    private final static int defaultBufferSize = 1 << 20;
+    private final static int defaultMaxBatchSize = 256;
+    private final static Duration defaultMaxLatency = Duration.ofMillis(2);
+    private final static int dictionaryResetInterval = 1 << 16;
+    private final static int maxDictionarySize = 4096;
+    private final static int maxSeenValues = 1 << 14;
+    // Shorter values take no fewer characters as $id than quoted, with ids below maxDictionarySize.
+    private final static int minDictionaryValueLength = 4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final boolean schemaHeaders;
+    private final RowIndex rowIndex;
+    // Dictionary and values seen once since the last reset, null with the dictionary off.
+    private final AsciiDictionary dictionary;
+    private final Set<String> seen;
+    private final ThreadLocal<ByteBuffer> scratches = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1024));
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchFull = lock.newCondition();
+    private final Condition committed = lock.newCondition();
+    // Number of lines in the file (appended) and number of lines known to be on disk (durable).
+    private long appended;
+    private long durable;
+    // Length of the file with the buffered bytes.
+    private long length;
+    // Schema of the last header written, written under lock but read by appenders before taking it.
+    private volatile Schema schema;
+    // Line after the last dictionary reset, and whether the file had lines whose definitions aren't known.
+    private long dictionaryStart;
+    private boolean resetPending;
+    private boolean leading;
+    private boolean closed;
+
+    public TextorWriter(Path path) throws IOException {
+        this(path, defaultBufferSize, defaultMaxBatchSize, defaultMaxLatency);
+    }
+
+    public TextorWriter(Path path, boolean schemaHeaders) throws IOException {
+        this(path, defaultBufferSize, defaultMaxBatchSize, defaultMaxLatency, schemaHeaders);
+    }
+
+    public TextorWriter(Path path, boolean schemaHeaders, boolean rowIndex) throws IOException {
+        this(path, defaultBufferSize, defaultMaxBatchSize, defaultMaxLatency, schemaHeaders, rowIndex);
+    }
+
+    public TextorWriter(Path path, boolean schemaHeaders, boolean rowIndex, boolean dictionary) throws IOException {
+        this(path, defaultBufferSize, defaultMaxBatchSize, defaultMaxLatency, schemaHeaders, rowIndex, dictionary);
+    }
+
+    public TextorWriter(Path path, int bufferSize, int maxBatchSize, Duration maxLatency) throws IOException {
+        this(path, bufferSize, maxBatchSize, maxLatency, false);
+    }
+
+    public TextorWriter(Path path, int bufferSize, int maxBatchSize, Duration maxLatency, boolean schemaHeaders) throws IOException {
+        this(path, bufferSize, maxBatchSize, maxLatency, schemaHeaders, false);
+    }
+
+    public TextorWriter(Path path, int bufferSize, int maxBatchSize, Duration maxLatency, boolean schemaHeaders, boolean rowIndex) throws IOException {
+        this(path, bufferSize, maxBatchSize, maxLatency, schemaHeaders, rowIndex, false);
+    }
+
+    public TextorWriter(Path path, int bufferSize, int maxBatchSize, Duration maxLatency, boolean schemaHeaders, boolean rowIndex, boolean dictionary) throws IOException {
+        if (bufferSize <= 0 || maxBatchSize <= 0 || maxLatency == null || maxLatency.isNegative()) {
+            throw new IllegalArgumentException("Illegal writer parameters (" + bufferSize + "," + maxBatchSize + "," + maxLatency + ").");
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.schemaHeaders = schemaHeaders;
+        this.dictionary = dictionary ? new AsciiDictionary() : null;
+        this.seen = dictionary ? new HashSet<>() : null;
+
+        long size = channel.size();
+        channel.position(size);
+        try {
+            // The row index has the lines up to its end already and only reads the rest, so the file is scanned in
+            // full only without one. A partial last line is past the end of the index.
+            this.rowIndex = rowIndex ? RowIndex.openForAppend(path, channel, size) : null;
+            appended = durable = this.rowIndex == null ? Lines.countLines(channel, size)
+                    : this.rowIndex.getLineCount() + (this.rowIndex.getEndOffset() < size ? 1 : 0);
+        }
+        catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+        length = size;
+        dictionaryStart = appended;
+        resetPending = appended > 0;
+        if (!Lines.endsWithNewline(channel, size)) {
+            // Terminate the partial last line, so the first appended row starts on a line of its own.
+            buffer.put((byte)'\n');
+            ++length;
+            if (this.rowIndex != null) {
+                this.rowIndex.terminateTail(size);
+            }
+        }
+    }
+
+    public int append(Row row) throws IOException {
+        // Encode outside the lock into a per-thread scratch buffer, appenders only serialize on the copy.
+        Schema rowSchema = null;
+        if (schemaHeaders) {
+            Schema last = schema;
+            rowSchema = last != null && last.matches(row) ? last : Schema.of(row);
+        }
+        ByteBuffer encoded = dictionary == null ? encodeLine(row, rowSchema, null) : null;
+        lock.lock();
+        try {
+            ensureOpen();
+            if (rowSchema != null && rowSchema != schema && (schema == null || !schema.matches(row))) {
+                putLine(Codec.encodeSchema(rowSchema), RowIndex.schemaLine);
+                schema = rowSchema;
+            }
+            if (dictionary != null) {
+                defineValues(row);
+                encoded = encodeLine(row, rowSchema, dictionary);
+            }
+            putLine(encoded, RowIndex.rowLine);
+            int index = (int)appended - 1;
+            if (leading && appended - durable >= maxBatchSize) {
+                batchFull.signal();
+            }
+            return index;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public void commit(int index) throws IOException {
+        lock.lock();
+        try {
+            if (index < 0 || index >= appended) {
+                throw new IllegalArgumentException("Row " + index + " is not appended.");
+            }
+            while (durable <= index) {
+                ensureOpen();
+                if (leading) {
+                    committed.awaitUninterruptibly();
+                }
+                else {
+                    lead();
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    public int appendDurable(Row row) throws IOException {
+        int index = append(row);
+        commit(index);
+        return index;
+    }
+
+    public long getRowCount() {
+        lock.lock();
+        try {
+            return appended;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void lead() throws IOException {
+        // Called with lock held, and lock is held again on return.
+        leading = true;
+        try {
+            long remains = maxLatencyNanos;
+            while (appended - durable < maxBatchSize && remains > 0) {
+                remains = batchFull.awaitNanos(remains);
+            }
+            long target = appended;
+            drain();
+            lock.unlock();
+            try {
+                channel.force(false);
+            }
+            finally {
+                lock.lock();
+            }
+            durable = Math.max(durable, target);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for group commit.", exception);
+        }
+        finally {
+            leading = false;
+            committed.signalAll();
+        }
+    }
+
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            drain();
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void defineValues(Row row) throws IOException {
+        // Called with lock held, puts the reset and definition lines the row needs.
+        if (resetPending || appended - dictionaryStart >= dictionaryResetInterval || dictionary.size() >= maxDictionarySize) {
+            putLine(Codec.encodeDictionaryReset(), RowIndex.resetLine);
+            dictionary.clear();
+            seen.clear();
+            dictionaryStart = appended;
+            resetPending = false;
+        }
+        for (int cur = 0; cur < row.getAttributeCount(); ++cur) {
+            defineValue(row.getAttribute(cur));
+        }
+        for (int cur = 0; cur < row.getColumnCount(); ++cur) {
+            defineValue(row.getColumn(cur));
+        }
+    }
+
+    private void defineValue(Cell cell) throws IOException {
+        if (cell.getColumnDescriptor().getValueDescriptor().getType() != ValueType.ASCII || cell.isNull()) {
+            return;
+        }
+        String value = cell.getAsciiString();
+        if (value.length() < minDictionaryValueLength || dictionary.size() >= maxDictionarySize || dictionary.idOf(value) != -1) {
+            return;
+        }
+        if (seen.remove(value)) {
+            putLine(Codec.encodeDefinition(dictionary.add(value), value), RowIndex.definitionLine);
+        }
+        else {
+            if (seen.size() >= maxSeenValues) {
+                seen.clear();
+            }
+            seen.add(value);
+        }
+    }
+
+    private ByteBuffer encodeLine(Row row, Schema rowSchema, AsciiDictionary dictionary) {
+        int length = (rowSchema == null ? Codec.encodedLength(row, dictionary) : Codec.encodedLength(row, rowSchema, dictionary)) + 1;
+        ByteBuffer scratch = scratches.get();
+        if (scratch.capacity() < length) {
+            scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+            scratches.set(scratch);
+        }
+        scratch.clear();
+        if (rowSchema == null) {
+            Codec.encode(row, dictionary, scratch);
+        }
+        else {
+            Codec.encode(row, rowSchema, dictionary, scratch);
+        }
+        scratch.put((byte)'\n');
+        return scratch.flip();
+    }
+
+    private void putLine(String line, int kind) throws IOException {
+        putLine(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.US_ASCII)), kind);
+    }
+
+    private void putLine(ByteBuffer encoded, int kind) throws IOException {
+        // Every line counts, so row indices stay line numbers.
+        long offset = length;
+        length += encoded.remaining();
+        if (rowIndex != null) {
+            rowIndex.add(offset, length, kind);
+        }
+        put(encoded);
+        ++appended;
+    }
+
+    private void put(ByteBuffer encoded) throws IOException {
+        if (buffer.remaining() < encoded.remaining()) {
+            drain();
+        }
+        if (buffer.remaining() < encoded.remaining()) {
+            // The row is larger than the whole buffer, so write it through.
+            writeFully(encoded);
+        }
+        else {
+            buffer.put(encoded);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        }
+        finally {
+            buffer.compact();
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed.");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            while (leading) {
+                committed.awaitUninterruptibly();
+            }
+            try {
+                drain();
+                channel.force(false);
+                durable = appended;
+            }
+            finally {
+                closed = true;
+                committed.signalAll();
+                try {
+                    if (rowIndex != null) {
+                        rowIndex.close();
+                    }
+                }
+                finally {
+                    channel.close();
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+}
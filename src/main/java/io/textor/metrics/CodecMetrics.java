@@ -0,0 +1,126 @@
+package io.textor.metrics;
+
+import io.textor.ValueType;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Codec instrumentation: rows and bytes encoded and decoded, values by {@link ValueType}, latency histograms and
+ * failures by kind. Metrics are looked up in a {@link MetricsRegistry} once, when installed.
+ * <p>
+ * Nothing is installed by default, and the codec then pays one null check per row and per value. Once installed,
+ * counts cover every row, while one row in sample-interval on average is timed, row and values, so that the
+ * histograms cost two clock reads per value of a sampled row only.
+ */
+public class CodecMetrics {
+    public enum Operation {
+        ENCODE,
+        DECODE
+    }
+
+    public enum ErrorKind {
+        // Key of a self-describing row, value of any row, values not matching the schema, dictionary line and
+        // buffer too small for the row.
+        KEY,
+        VALUE,
+        SCHEMA,
+        DICTIONARY,
+        OVERFLOW
+    }
+
+    private final static int defaultSampleInterval = 64;
+    private final static String prefix = "textor.codec.";
+    private final static int typeCount = ValueType.values().length;
+    private static volatile CodecMetrics installed;
+
+    private final int sampleInterval;
+    private final Counter[] rows = new Counter[Operation.values().length];
+    private final Counter[] bytes = new Counter[Operation.values().length];
+    private final Histogram[] rowNanos = new Histogram[Operation.values().length];
+    // Indexed by operation ordinal * number of value types + value type ordinal.
+    private final Counter[] values = new Counter[Operation.values().length * typeCount];
+    private final Histogram[] valueNanos = new Histogram[Operation.values().length * typeCount];
+    private final Counter[] errors = new Counter[ErrorKind.values().length];
+
+    public CodecMetrics(MetricsRegistry registry) {
+        this(registry, defaultSampleInterval);
+    }
+
+    public CodecMetrics(MetricsRegistry registry, int sampleInterval) {
+        if (registry == null || sampleInterval <= 0) {
+            throw new IllegalArgumentException("Illegal codec metrics parameters (" + registry + "," + sampleInterval + ").");
+        }
+        this.sampleInterval = sampleInterval;
+        for (Operation operation : Operation.values()) {
+            String name = nameOf(operation);
+            rows[operation.ordinal()] = registry.counter(prefix + name + ".rows");
+            bytes[operation.ordinal()] = registry.counter(prefix + name + ".bytes");
+            rowNanos[operation.ordinal()] = registry.histogram(prefix + name + ".row.nanos");
+            for (ValueType type : ValueType.values()) {
+                int slot = slotOf(operation, type);
+                values[slot] = registry.counter(prefix + name + ".values." + nameOf(type));
+                valueNanos[slot] = registry.histogram(prefix + name + ".value." + nameOf(type) + ".nanos");
+            }
+        }
+        for (ErrorKind kind : ErrorKind.values()) {
+            errors[kind.ordinal()] = registry.counter(prefix + "errors." + nameOf(kind));
+        }
+    }
+
+    public static CodecMetrics install(MetricsRegistry registry) {
+        return install(new CodecMetrics(registry));
+    }
+
+    public static CodecMetrics install(CodecMetrics metrics) {
+        // Replaces the metrics installed before, if any.
+        installed = metrics;
+        return metrics;
+    }
+
+    public static void uninstall() {
+        installed = null;
+    }
+
+    public static CodecMetrics current() {
+        // Null when nothing is installed.
+        return installed;
+    }
+
+    public boolean sample() {
+        return sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0;
+    }
+
+    public void row(Operation operation, long length, long nanos) {
+        // nanos is -1 for a row that wasn't sampled.
+        rows[operation.ordinal()].increment();
+        bytes[operation.ordinal()].add(length);
+        if (nanos >= 0) {
+            rowNanos[operation.ordinal()].record(nanos);
+        }
+    }
+
+    public void value(Operation operation, ValueType type, long nanos) {
+        int slot = slotOf(operation, type);
+        values[slot].increment();
+        if (nanos >= 0) {
+            valueNanos[slot].record(nanos);
+        }
+    }
+
+    public void error(ErrorKind kind) {
+        errors[kind.ordinal()].increment();
+    }
+
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    private static int slotOf(Operation operation, ValueType type) {
+        return operation.ordinal() * typeCount + type.ordinal();
+    }
+
+    private static String nameOf(Enum<?> constant) {
+        return constant.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,23 @@
+package io.textor.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic count, cheap to add to from many threads at once.
+ */
+public class Counter implements CounterMXBean {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long value) {
+        count.add(value);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,5 @@
+package io.textor.metrics;
+
+public interface CounterMXBean {
+    long getCount();
+}
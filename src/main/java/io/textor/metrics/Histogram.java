@@ -0,0 +1,72 @@
+package io.textor.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative values, such as latencies in nanoseconds, in power-of-two buckets. Bucket N holds
+ * values of N significant bits, so a percentile is known within a factor of two and recording takes no lock.
+ */
+public class Histogram implements HistogramMXBean {
+    private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Illegal histogram value: " + value + ".");
+        }
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : (double)sum.sum() / n;
+    }
+
+    @Override
+    public long getMedian() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public long getPercentile99() {
+        return percentile(0.99);
+    }
+
+    public long percentile(double fraction) {
+        // Upper bound of the bucket holding the value at fraction of the count, capped by the max seen.
+        if (!(fraction >= 0.0 && fraction <= 1.0)) {
+            throw new IllegalArgumentException("Illegal percentile: " + fraction + ".");
+        }
+        long total = 0;
+        for (int cur = 0; cur < buckets.length(); ++cur) {
+            total += buckets.get(cur);
+        }
+        long rank = Math.max(1, (long)Math.ceil(fraction * total));
+        long seen = 0;
+        for (int cur = 0; cur < buckets.length(); ++cur) {
+            seen += buckets.get(cur);
+            if (seen >= rank) {
+                return Math.min(cur == Long.SIZE ? Long.MAX_VALUE : (1L << cur) - 1, getMax());
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,13 @@
+package io.textor.metrics;
+
+public interface HistogramMXBean {
+    long getCount();
+
+    long getMax();
+
+    double getMean();
+
+    long getMedian();
+
+    long getPercentile99();
+}
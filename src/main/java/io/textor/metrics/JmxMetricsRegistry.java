@@ -0,0 +1,89 @@
+package io.textor.metrics;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry that exposes every metric as an MBean named domain:type=Counter,name=... or domain:type=Histogram,name=...
+ * as soon as it is created. {@link #close()} unregisters them.
+ */
+public class JmxMetricsRegistry implements MetricsRegistry, Closeable {
+    private final static String defaultDomain = "io.textor";
+
+    private final MBeanServer server;
+    private final String domain;
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ObjectName, Object> registered = new ConcurrentHashMap<>();
+
+    public JmxMetricsRegistry() {
+        this(ManagementFactory.getPlatformMBeanServer(), defaultDomain);
+    }
+
+    public JmxMetricsRegistry(MBeanServer server, String domain) {
+        if (server == null || domain == null || domain.isEmpty()) {
+            throw new IllegalArgumentException("Illegal JMX registry parameters (" + server + "," + domain + ").");
+        }
+        this.server = server;
+        this.domain = domain;
+    }
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> register("Counter", key, new Counter()));
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> register("Histogram", key, new Histogram()));
+    }
+
+    public Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    public ObjectName objectNameOf(String type, String name) {
+        try {
+            return new ObjectName(domain + ":type=" + type + ",name=" + ObjectName.quote(name));
+        }
+        catch (JMException exception) {
+            throw new IllegalArgumentException("Illegal metric name: " + name + ".", exception);
+        }
+    }
+
+    private <T> T register(String type, String name, T metric) {
+        ObjectName objectName = objectNameOf(type, name);
+        try {
+            server.registerMBean(metric, objectName);
+        }
+        catch (JMException exception) {
+            throw new IllegalStateException("Can't register " + objectName + ".", exception);
+        }
+        registered.put(objectName, metric);
+        return metric;
+    }
+
+    @Override
+    public void close() {
+        for (ObjectName objectName : registered.keySet()) {
+            try {
+                server.unregisterMBean(objectName);
+            }
+            catch (JMException exception) {
+                // Unregistered by someone else already.
+            }
+            registered.remove(objectName);
+        }
+    }
+}
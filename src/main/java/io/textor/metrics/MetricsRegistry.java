@@ -0,0 +1,11 @@
+package io.textor.metrics;
+
+/**
+ * Named counters and histograms. Asking for the same name twice returns the same metric, so callers look metrics up
+ * once and keep them.
+ */
+public interface MetricsRegistry {
+    Counter counter(String name);
+
+    Histogram histogram(String name);
+}
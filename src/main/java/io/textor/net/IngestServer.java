@@ -0,0 +1,338 @@
+package io.textor.net;
+
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.codec.AsciiSequence;
+import io.textor.io.LineDecoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives Textor rows over TCP, one row per line, on a single {@link Selector} thread. Every connection decodes its
+ * own lines with its own schema headers, and row indices are line numbers on the connection.
+ * <p>
+ * The rows of each read go to the {@link IngestSink} in one batch, on the sink executor, so a sink waiting on a commit
+ * holds up its own connection only. The connection is not read from until the sink returns, then one acknowledgement
+ * line "+count" carries the number of rows the connection has had accepted so far. A line that fails to decode is
+ * answered with "!line message" and skipped. A failing sink closes the connection without acknowledging the batch. A
+ * producer that doesn't read its acknowledgements is not read from until they are written. Once a producer closes its
+ * side, the replies pending are written before the connection is closed.
+ * <p>
+ * {@link #close()} waits up to close-timeout for the sinks running on the default executor, then interrupts them. An
+ * interrupted sink doesn't get its batch acknowledged, and a sink interrupted in a {@link java.nio.channels.FileChannel}
+ * operation, such as the commit of {@link IngestSink#of}, has that channel closed.
+ */
+public final class IngestServer implements Closeable {
+    private final static int defaultBufferSize = 1 << 16;
+    private final static int maxLineLength = 1 << 26;
+    private final static Duration closeTimeout = Duration.ofSeconds(10);
+
+    private final IngestSink sink;
+    private final int bufferSize;
+    private final Executor executor;
+    // The default executor, shut down on close, or null if the executor was given.
+    private final ExecutorService ownedExecutor;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    // Connections whose batch the sink is done with, taken by the selector thread.
+    private final Deque<Connection> completed = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    public IngestServer(InetSocketAddress address, IngestSink sink) throws IOException {
+        this(address, sink, defaultBufferSize);
+    }
+
+    public IngestServer(InetSocketAddress address, IngestSink sink, int bufferSize) throws IOException {
+        this(address, sink, bufferSize, null);
+    }
+
+    public IngestServer(InetSocketAddress address, IngestSink sink, int bufferSize, Executor executor) throws IOException {
+        // Port 0 binds any free port, getAddress() tells which. Without an executor, sinks run on daemon threads of
+        // the server, one per connection with a batch in the sink.
+        if (bufferSize <= 0 || bufferSize > maxLineLength) {
+            throw new IllegalArgumentException("Illegal ingest buffer size: " + bufferSize + ".");
+        }
+        this.sink = Objects.requireNonNull(sink);
+        this.bufferSize = bufferSize;
+        ownedExecutor = executor == null ? Executors.newCachedThreadPool(runnable -> {
+            Thread sinkThread = new Thread(runnable, "textor-ingest-sink");
+            sinkThread.setDaemon(true);
+            return sinkThread;
+        }) : null;
+        this.executor = executor == null ? ownedExecutor : executor;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        catch (IOException | RuntimeException exception) {
+            server.close();
+            selector.close();
+            if (ownedExecutor != null) {
+                ownedExecutor.shutdown();
+            }
+            throw exception;
+        }
+        thread = new Thread(this::run, "textor-ingest-" + getAddress().getPort());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress)server.getLocalAddress();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                complete();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection)key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            connection.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    }
+                    catch (IOException | RuntimeException exception) {
+                        connection.close();
+                    }
+                }
+            }
+        }
+        catch (IOException exception) {
+            // The selector failed, nothing more can be served.
+        }
+        finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            synchronized (completed) {
+                // Sinks that return from now on find the selector closed and leave their connection alone.
+                closeQuietly(selector);
+                completed.clear();
+            }
+        }
+    }
+
+    private void completed(Connection connection) {
+        // Called on sink threads, the selector thread acknowledges the batch.
+        synchronized (completed) {
+            if (selector.isOpen()) {
+                completed.add(connection);
+                selector.wakeup();
+            }
+        }
+    }
+
+    private void complete() {
+        while (true) {
+            Connection connection;
+            synchronized (completed) {
+                connection = completed.poll();
+            }
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.complete();
+            }
+            catch (IOException | RuntimeException exception) {
+                connection.close();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        }
+        catch (IOException exception) {
+            // Closing on the way out, nothing to do about it.
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join();
+            if (ownedExecutor != null) {
+                // Waits for the sinks running, their batches are not acknowledged, and gives up on stuck ones.
+                ownedExecutor.shutdown();
+                if (!ownedExecutor.awaitTermination(closeTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    ownedExecutor.shutdownNow();
+                }
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final AsciiSequence line = new AsciiSequence();
+        private final List<Row> batch = new ArrayList<>();
+        // Received bytes in write mode, and replies not written yet in read mode.
+        private ByteBuffer input = ByteBuffer.allocate(bufferSize);
+        private ByteBuffer output = ByteBuffer.allocate(256).flip();
+        private final LineDecoder decoder = new LineDecoder();
+        private int lineNumber;
+        private long accepted;
+        // The batch is in the sink, and whether the sink failed once it is back.
+        private boolean sinking;
+        private boolean sinkFailed;
+        // The producer closed its side, the connection closes once the replies are written.
+        private boolean ended;
+
+        private Connection(SocketChannel socketChannel, SelectionKey selectionKey) {
+            channel = socketChannel;
+            key = selectionKey;
+        }
+
+        private void read() throws IOException {
+            int read = channel.read(input);
+            if (read < 0) {
+                ended = true;
+                flush();
+                return;
+            }
+            input.flip();
+            byte[] bytes = input.array();
+            int from = input.position();
+            for (int cur = from; cur < input.limit(); ++cur) {
+                if (bytes[cur] == '\n') {
+                    decode(from, cur > from && bytes[cur - 1] == '\r' ? cur - 1 : cur);
+                    from = cur + 1;
+                }
+            }
+            input.position(from);
+            input.compact();
+            if (!input.hasRemaining()) {
+                // A line fills the whole buffer, so grow it.
+                if (input.capacity() >= maxLineLength) {
+                    throw new IOException("Line exceeds " + maxLineLength + " bytes.");
+                }
+                input = ByteBuffer.allocate(input.capacity() * 2).put(input.flip());
+            }
+            if (!batch.isEmpty()) {
+                sinking = true;
+                sinkFailed = true;
+                executor.execute(() -> {
+                    try {
+                        sink.accept(batch);
+                        sinkFailed = false;
+                    }
+                    catch (IOException | RuntimeException exception) {
+                        // The selector thread closes the connection.
+                    }
+                    finally {
+                        completed(this);
+                    }
+                });
+            }
+            flush();
+        }
+
+        private void complete() throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            sinking = false;
+            if (sinkFailed) {
+                close();
+                return;
+            }
+            accepted += batch.size();
+            batch.clear();
+            reply("+" + accepted);
+            flush();
+        }
+
+        private void decode(int from, int to) {
+            int index = lineNumber++;
+            line.wrap(input.array(), from, to - from);
+            try {
+                if (decoder.apply(line, index)) {
+                    batch.add(decoder.decode(line, null, null, index));
+                }
+            }
+            catch (RowDecodeException exception) {
+                reply("!" + index + " " + exception.getCause().getMessage());
+            }
+        }
+
+        private void reply(String text) {
+            byte[] bytes = (text.replace('\n', ' ') + "\n").getBytes(StandardCharsets.US_ASCII);
+            output.compact();
+            if (output.remaining() < bytes.length) {
+                output = ByteBuffer.allocate(Math.max(output.capacity() * 2, output.position() + bytes.length)).put(output.flip());
+            }
+            output.put(bytes).flip();
+        }
+
+        private void flush() throws IOException {
+            // While replies are pending, the connection waits to write them before it reads again, and while its batch
+            // is in the sink, it waits for the sink.
+            channel.write(output);
+            if (ended && !output.hasRemaining()) {
+                close();
+                return;
+            }
+            key.interestOps(output.hasRemaining() ? SelectionKey.OP_WRITE : sinking || ended ? 0 : SelectionKey.OP_READ);
+        }
+
+        private void close() {
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.textor.net;
+
+import io.textor.Row;
+import io.textor.io.TextorWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Takes the rows an {@link IngestServer} decodes. It is called on the sink executor of the server with the rows of one
+ * read from one connection, and the rows are acknowledged to the producer once it returns. A connection has one call
+ * at a time, but calls for different connections run concurrently, so a sink has to be thread-safe. The list is
+ * reused after the call.
+ */
+@FunctionalInterface
+public interface IngestSink {
+    void accept(List<Row> rows) throws IOException;
+
+    static IngestSink of(TextorWriter writer) {
+        // Rows are acknowledged once durable, and one group commit covers the batch and those of other connections
+        // committing at the same time.
+        return rows -> {
+            int last = -1;
+            for (Row row : rows) {
+                last = writer.append(row);
+            }
+            if (last != -1) {
+                writer.commit(last);
+            }
+        };
+    }
+}
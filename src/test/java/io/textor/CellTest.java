@@ -15,4 +15,49 @@ class CellTest {
                         new ValueDescriptor(ValueType.TIMESTAMP, 0, 0, 0)),
                 1L));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Create primitive cells.")
+    public void constructPrimitive() {
+        ColumnDescriptor integer = new ColumnDescriptor(
+                new KeyDescriptor("Key1", KeyType.COLUMN),
+                new ValueDescriptor(ValueType.INTEGER, 0, 0, 0));
+        ColumnDescriptor decimal = new ColumnDescriptor(
+                new KeyDescriptor("Key2", KeyType.COLUMN),
+                new ValueDescriptor(ValueType.DECIMAL, 6, 2, 0));
+
+        Cell cell = new Cell(1, integer, 35L);
+        assertFalse(cell.isNull());
+        assertEquals(35L, cell.getLong());
+        assertEquals(35L, cell.getInteger());
+        assertEquals(35L, cell.getValue());
+        assertThrowsExactly(IllegalStateException.class, cell::getDouble);
+
+        cell = new Cell(1, decimal, 10.9D);
+        assertEquals(10.9D, cell.getDouble());
+        assertEquals(10.9D, cell.getDecimal());
+        assertThrowsExactly(IllegalStateException.class, cell::getLong);
+
+        // Boxed values are stored unboxed too.
+        cell = new Cell(1, decimal, (Object)Double.valueOf(-0D));
+        assertEquals(Double.doubleToRawLongBits(-0D), Double.doubleToRawLongBits(cell.getDouble()));
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Cell(1, decimal, 1L));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Cell(1, integer, 1D));
+    }
+
+    @Test
+    @DisplayName("Create null cells.")
+    public void constructNull() {
+        Cell cell = new Cell(1,
+                new ColumnDescriptor(
+                        new KeyDescriptor("Key1", KeyType.COLUMN),
+                        new ValueDescriptor(ValueType.INTEGER, 0, 0, 0)),
+                null);
+
+        assertTrue(cell.isNull());
+        assertNull(cell.getValue());
+        assertNull(cell.getInteger());
+        assertEquals(0L, cell.getLong());
+    }
+}
@@ -0,0 +1,54 @@
+package io.textor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowTest {
+    private static Cell integer(String name, long value) {
+        return new Cell(1,
+                new ColumnDescriptor(
+                        new KeyDescriptor(name, KeyType.COLUMN),
+                        new ValueDescriptor(ValueType.INTEGER, 0, 0, 0)),
+                value);
+    }
+
+    @Test
+    @DisplayName("Cells are sorted by name and resolve by slot.")
+    public void sortedSlots() {
+        Row row = new Row(new Cell[] {integer("c", 3L), integer("a", 1L), integer("b", 2L)}, null);
+
+        assertEquals(3, row.getColumnCount());
+        assertEquals(0, row.getAttributeCount());
+        for (int slot = 0; slot < 3; ++slot) {
+            assertEquals(slot + 1, row.getColumn(slot).getLong());
+            assertEquals(String.valueOf((char)('a' + slot)), row.getColumnLayout().getName(slot));
+        }
+        assertEquals(2, row.getColumnLayout().slotOf("c"));
+        assertEquals(-1, row.getColumnLayout().slotOf("d"));
+        assertEquals(2L, row.getColumn("b").getLong());
+        assertNull(row.getColumn("d"));
+    }
+
+    @Test
+    @DisplayName("Last cell of a duplicate name is kept.")
+    public void duplicateNames() {
+        Row row = new Row(new Cell[] {integer("a", 1L), integer("b", 2L), integer("a", 3L)}, null);
+
+        assertEquals(2, row.getColumnCount());
+        assertEquals(3L, row.getColumn("a").getLong());
+        assertEquals(3L, row.getColumns()[0].getLong());
+    }
+
+    @Test
+    @DisplayName("Rows with the same names share a layout.")
+    public void sharedLayout() {
+        Row first = new Row(new Cell[] {integer("x", 1L), integer("y", 2L)}, null);
+        Row second = new Row(new Cell[] {integer("y", 3L), integer("x", 4L)}, null);
+
+        assertSame(first.getColumnLayout(), second.getColumnLayout());
+        assertSame(first.getAttributeLayout(), second.getAttributeLayout());
+        assertNotSame(first.getColumnLayout(), new Row(new Cell[] {integer("x", 1L)}, null).getColumnLayout());
+    }
+}
@@ -6,6 +6,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.util.Arrays;
 
@@ -220,4 +225,198 @@ class CodecTest {
         assertEquals(0, attrs[4].getColumnDescriptor().getValueDescriptor().getDecimalWidth());
         assertEquals(now, attrs[4].getTimestamp());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Decode from byte array range.")
+    public void decodeBytes() {
+        String expr = attrStr + "," + columnStr;
+        byte[] bytes = ("xx" + expr + "yy").getBytes(StandardCharsets.US_ASCII);
+        Row row = Codec.decode(bytes, 2, expr.length(), 1);
+
+        assertEquals(Codec.encode(Codec.decode(expr, 1)), Codec.encode(row));
+        assertEquals(now, row.getColumn("Key5").getTimestamp());
+        assertEquals(now, row.getAttribute("Attr5").getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Decode from direct byte buffer slice.")
+    public void decodeByteBuffer() {
+        String expr = attrStr + "," + columnStr;
+        byte[] bytes = expr.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 8);
+        buffer.position(8);
+        buffer.put(bytes);
+        Row row = Codec.decode(buffer, 8, bytes.length, 1);
+
+        assertEquals(Codec.encode(Codec.decode(expr, 1)), Codec.encode(row));
+        assertEquals(Arrays.hashCode(binary), Arrays.hashCode(row.getColumn("Key4").getBinary()));
+        assertThrowsExactly(IndexOutOfBoundsException.class, () -> Codec.decode(buffer, 8, bytes.length + 1, 1));
+    }
+
+    @Test
+    @DisplayName("Encode into appendable and byte buffer.")
+    public void encodeSinks() throws IOException {
+        Row row = new Row(columns, attrs);
+        String expected = attrStr + "," + columnStr;
+
+        assertEquals(expected, Codec.encode(row, new StringWriter()).toString());
+        assertEquals(expected.length(), Codec.encodedLength(row));
+
+        ByteBuffer buffer = ByteBuffer.allocate(Codec.encodedLength(row));
+        Codec.encode(row, buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(expected, new String(buffer.array(), StandardCharsets.US_ASCII));
+
+        ByteBuffer small = ByteBuffer.allocate(expected.length() - 1);
+        assertThrowsExactly(BufferOverflowException.class, () -> Codec.encode(row, small));
+        assertEquals(0, small.position());
+    }
+
+    @Test
+    @DisplayName("Exact encoded length of edge values.")
+    public void encodedLengthEdges() throws IOException {
+        Row row = new Row(new Cell[] {
+                new Cell(1,
+                        new ColumnDescriptor(
+                                new KeyDescriptor("Min", KeyType.COLUMN),
+                                new ValueDescriptor(ValueType.INTEGER, 0, 0, 0)),
+                        Long.MIN_VALUE),
+                new Cell(1,
+                        new ColumnDescriptor(
+                                new KeyDescriptor("Zero", KeyType.COLUMN),
+                                new ValueDescriptor(ValueType.INTEGER, 0, 0, 0)),
+                        0L),
+                new Cell(1,
+                        new ColumnDescriptor(
+                                new KeyDescriptor("Quoted", KeyType.COLUMN),
+                                new ValueDescriptor(ValueType.ASCII, 0, 0, 0)),
+                        "\"quoted\" \\ text"),
+                new Cell(1,
+                        new ColumnDescriptor(
+                                new KeyDescriptor("Blob", KeyType.COLUMN),
+                                new ValueDescriptor(ValueType.BINARY, 0, 0, 1234)),
+                        new byte[1234]),
+        }, new Cell[] {
+                new Cell(1,
+                        new ColumnDescriptor(
+                                new KeyDescriptor("NotAttr", KeyType.COLUMN),
+                                new ValueDescriptor(ValueType.DECIMAL, 12, 4, 0)),
+                        -1234.56789D),
+        });
+        String encoded = Codec.encode(row);
+
+        assertTrue(encoded.startsWith("@NotAttr(D:12,4)"));
+        assertTrue(encoded.contains("Min(L)-9223372036854775808,"));
+        assertEquals(encoded, Codec.encode(row, new StringWriter()).toString());
+        assertEquals(encoded.length(), Codec.encodedLength(row));
+    }
+
+    @Test
+    @DisplayName("Encode and decode with schema header.")
+    public void schemaRoundTrip() {
+        Row row = new Row(columns, attrs);
+        Schema schema = Schema.of(row);
+        String header = Codec.encodeSchema(schema);
+        String values = Codec.encode(row, schema);
+
+        assertEquals("#@Attr1(L),@Attr2(A),@Attr3(D:3,1),@Attr4(B:4),@Attr5(T),Key1(L),Key2(A),Key3(D:3,1),Key4(B:4),Key5(T)", header);
+        assertEquals("1,\"ASCII string!\",12.3," + binaryStr + "," + timestampStr + ",1,\"ASCII string!\",12.3," + binaryStr + "," + timestampStr, values);
+        assertEquals(values.length(), Codec.encodedLength(row, schema));
+        assertTrue(Codec.isSchema(header));
+        assertFalse(Codec.isSchema(values));
+
+        Schema decoded = Codec.decodeSchema(header);
+        assertEquals(5, decoded.getColumnCount());
+        assertEquals(5, decoded.getAttributeCount());
+        assertTrue(decoded.matches(row));
+        Row decodedRow = Codec.decode(values, decoded, 1);
+        assertEquals(Codec.encode(row), Codec.encode(decodedRow));
+        assertEquals(1, decodedRow.getIndex());
+    }
+
+    @Test
+    @DisplayName("Rows not matching schema.")
+    public void schemaMismatch() {
+        Row row = new Row(columns, attrs);
+        Schema schema = Schema.of(new Row(columns, null));
+
+        assertFalse(schema.matches(row));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.encode(row, schema));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode("1,\"a\",1.2," + binaryStr, schema, 1));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode("1,\"a\",1.2," + binaryStr + "," + timestampStr + ",2", schema, 1));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decodeSchema("#Key2(A),Key1(L)"));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decodeSchema("#Key1(L)Key2(A)"));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decodeSchema("Key1(L)"));
+    }
+
+    @Test
+    @DisplayName("Decode projected cells only.")
+    public void decodeProjection() {
+        String expr = attrStr + "," + columnStr;
+        Row row = Codec.decode(expr, new Projection("Key2", "Key5", "@Attr4", "Missing"), 1);
+
+        assertEquals(2, row.getColumnCount());
+        assertEquals(1, row.getAttributeCount());
+        assertEquals("ASCII string!", row.getColumn("Key2").getAsciiString());
+        assertEquals(now, row.getColumn("Key5").getTimestamp());
+        assertArrayEquals(binary, row.getAttribute("Attr4").getBinary());
+        assertNull(row.getColumn("Key1"));
+
+        Row attributes = Codec.decode(expr, new Projection("@Attr1"), 1);
+        assertEquals(0, attributes.getColumnCount());
+        assertEquals(1L, attributes.getAttribute("Attr1").getLong());
+
+        Row full = new Row(columns, attrs);
+        Schema schema = Schema.of(full);
+        Projection projection = new Projection("Key3", "@Attr2");
+        for (int n = 0; n < 2; ++n) {
+            Row projected = Codec.decode(Codec.encode(full, schema), schema, projection, 1);
+            assertEquals("Key3(D:3,1)12.3", Codec.encode(new Row(projected.getColumns(), null)));
+            assertEquals("ASCII string!", projected.getAttribute("Attr2").getAsciiString());
+        }
+    }
+
+    @Test
+    @DisplayName("Skipped values are still checked for bounds.")
+    public void decodeProjectionMalformed() {
+        Projection projection = new Projection("Key1");
+        assertEquals(2L, Codec.decode("Key2(A)\"a\\\",b\",Key1(L)2", projection, 1).getColumn("Key1").getLong());
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode("Key2(A)\"abc,Key1(L)2", projection, 1));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode("Key2(B:4)AAA,Key1(L)2", projection, 1));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode("Key2(B:4)AAAAA,Key1(L)2", projection, 1));
+    }
+
+    @Test
+    @DisplayName("Encode and decode with a dictionary.")
+    public void dictionary() throws IOException {
+        AsciiDictionary written = new AsciiDictionary();
+        written.add("system_admin");
+        Row row = Codec.decode("@ROLE(A)\"system_admin\",_name(A)\"system_admin\",_other(A)\"guest\"", 0);
+        String encoded = Codec.encode(row, written);
+        assertEquals("@ROLE(A)$0,_name(A)$0,_other(A)\"guest\"", encoded);
+        assertEquals(encoded.length(), Codec.encodedLength(row, written));
+
+        AsciiDictionary read = new AsciiDictionary();
+        String definition = Codec.encodeDefinition(0, "system_admin");
+        assertEquals("$0=\"system_admin\"", definition);
+        assertTrue(Codec.isDictionary(definition));
+        assertTrue(Codec.isDictionary(Codec.encodeDictionaryReset()));
+        assertFalse(Codec.isDictionary("$0,12"));
+        Codec.decodeDictionary(definition, read);
+        Row decoded = Codec.decode(encoded, null, read, 3);
+        assertEquals(Codec.encode(row), Codec.encode(decoded));
+        assertSame(decoded.getAttribute(0).getAsciiString(), decoded.getColumn(0).getAsciiString());
+
+        Schema schema = Schema.of(row);
+        String values = Codec.encode(row, schema, written, new StringBuilder()).toString();
+        assertEquals("$0,$0,\"guest\"", values);
+        assertEquals(Codec.encode(row), Codec.encode(Codec.decode(values, schema, null, read, 3)));
+        assertTrue(new Filter(Predicate.equalTo("@ROLE", "system_admin")).test(encoded, read));
+        assertTrue(new Filter(Predicate.prefix("_name", "system")).test(values, schema, read));
+
+        Codec.decodeDictionary(Codec.encodeDictionaryReset(), read);
+        assertEquals(0, read.size());
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode(encoded, null, read, 3));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Codec.decode(encoded, 3));
+    }
+}
@@ -0,0 +1,88 @@
+package io.textor.codec;
+
+import io.textor.Row;
+import io.textor.Schema;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilterTest {
+    private final static String[] lines = {
+            "@TABLE(A)\"orders\",amount(D:8,2)1500.25,id(L)1,name(A)\"say \\\"hi\\\"\",time(T)2023-01-01T08:00:00+08:00[Asia/Shanghai]",
+            "@TABLE(A)\"orders\",amount(D:8,2)999.99,id(L)2,name(A)\"ordinary\",time(T)2023-01-01T01:00:00Z",
+            "@TABLE(A)\"order_lines\",amount(D:8,2)2000.00,id(L)3,name(A)\"say\",time(T)2023-01-02T00:00:00Z",
+            "@TABLE(A)\"orders\",amount(D:8,2)1000.00,id(L)4,name(A)\"\",time(T)2022-12-31T23:59:59.999999999Z",
+    };
+
+    private List<Integer> matching(Predicate... predicates) {
+        // Every line is tested self-describing and values-only, and both have to agree.
+        Filter filter = new Filter(predicates);
+        List<Integer> matched = new ArrayList<>();
+        for (int index = 0; index < lines.length; ++index) {
+            Row row = Codec.decode(lines[index], index);
+            Schema schema = Schema.of(row);
+            boolean test = filter.test(lines[index]);
+            assertEquals(test, filter.test(Codec.encode(row, schema), schema));
+            if (test) {
+                matched.add(index);
+            }
+        }
+        return matched;
+    }
+
+    @Test
+    @DisplayName("Equality and range on numbers.")
+    public void numbers() {
+        assertEquals(List.of(0, 3), matching(Predicate.equalTo("@TABLE", "orders"), Predicate.atLeast("amount", 1000)));
+        assertEquals(List.of(0, 2), matching(Predicate.greaterThan("amount", 1000.0)));
+        assertEquals(List.of(1), matching(Predicate.equalTo("id", 2)));
+        assertEquals(List.of(1, 2), matching(Predicate.between("id", 2L, 4L)));
+        assertEquals(List.of(0, 1, 3), matching(Predicate.atMost("amount", 1500.25)));
+        assertEquals(List.of(), matching(Predicate.lessThan("id", 1.5), Predicate.greaterThan("id", 1)));
+    }
+
+    @Test
+    @DisplayName("Equality, range and prefix on escaped ASCII.")
+    public void ascii() {
+        assertEquals(List.of(0), matching(Predicate.equalTo("name", "say \"hi\"")));
+        assertEquals(List.of(0, 2), matching(Predicate.prefix("name", "say")));
+        assertEquals(List.of(0), matching(Predicate.prefix("name", "say \"")));
+        assertEquals(List.of(0, 1, 2, 3), matching(Predicate.prefix("name", "")));
+        assertEquals(List.of(3), matching(Predicate.lessThan("name", "o")));
+        assertEquals(List.of(1, 2), matching(Predicate.between("name", "o", "say "), Predicate.isNotNull("name")));
+        assertEquals(List.of(2), matching(Predicate.prefix("@TABLE", "order_")));
+    }
+
+    @Test
+    @DisplayName("Range on timestamp instants.")
+    public void timestamps() {
+        ZonedDateTime midnight = ZonedDateTime.parse("2023-01-01T00:00:00Z");
+        assertEquals(List.of(0, 1), matching(Predicate.between("time", midnight, midnight.plusDays(1))));
+        assertEquals(List.of(0), matching(Predicate.equalTo("time", midnight)));
+        assertEquals(List.of(3), matching(Predicate.lessThan("time", midnight.toInstant())));
+    }
+
+    @Test
+    @DisplayName("Missing keys are null.")
+    public void nulls() {
+        assertEquals(List.of(0, 1, 2, 3), matching(Predicate.isNull("missing")));
+        assertEquals(List.of(), matching(Predicate.isNotNull("missing")));
+        assertEquals(List.of(), matching(Predicate.equalTo("missing", 1L)));
+        assertEquals(List.of(), matching(Predicate.isNull("@TABLE")));
+        assertTrue(new Filter(Predicate.isNull("id")).test("id(L),name(A)\"x\""));
+    }
+
+    @Test
+    @DisplayName("Predicates of wrong value types.")
+    public void wrongTypes() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Filter(Predicate.equalTo("id", "1")).test(lines[0]));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Filter(Predicate.prefix("id", "1")).test(lines[0]));
+        assertThrowsExactly(IllegalArgumentException.class, () -> Predicate.equalTo("id", new Object()));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new Filter());
+    }
+}
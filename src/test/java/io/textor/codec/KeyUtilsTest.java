@@ -5,6 +5,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class KeyUtilsTest {
@@ -295,4 +298,43 @@ class KeyUtilsTest {
         assertThrowsExactly(IllegalArgumentException.class, () -> KeyUtils.decodeKey("keyB:)", new DecodingState(0)));
         assertThrowsExactly(IllegalArgumentException.class, () -> KeyUtils.decodeKey("keyB:1)", new DecodingState(0)));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Decode key from bytes.")
+    public void decodeKeyBytes() {
+        byte[] bytes = ",@price(D:12,4)1.5".getBytes(StandardCharsets.US_ASCII);
+        DecodingState state = new DecodingState(0);
+        ColumnDescriptor desc = KeyUtils.decodeKey(bytes, 1, bytes.length - 1, state);
+
+        assertEquals("price", desc.getKeyDescriptor().getName());
+        assertEquals(KeyType.ATTRIBUTE, desc.getKeyDescriptor().getType());
+        assertEquals(12, desc.getValueDescriptor().getDecimalWidth());
+        assertEquals(4, desc.getValueDescriptor().getDecimalPrecision());
+        // Cursor counts from the beginning of the range.
+        assertEquals(14, state.getCursor());
+
+        state.setCursor(0);
+        desc = KeyUtils.decodeKey(ByteBuffer.wrap(bytes), 1, bytes.length - 1, state);
+        assertEquals("price", desc.getKeyDescriptor().getName());
+        assertEquals(14, state.getCursor());
+    }
+
+    @Test
+    @DisplayName("Decode repeated keys into shared descriptor.")
+    public void decodeSharedDescriptor() {
+        DecodingState state = new DecodingState(0);
+        ColumnDescriptor first = KeyUtils.decodeKey("price(D:12,4)1.5", state);
+        assertEquals(13, state.getCursor());
+
+        state.setCursor(4);
+        ColumnDescriptor second = KeyUtils.decodeKey("1.5,price(D:12,4)2.5".getBytes(StandardCharsets.US_ASCII), 0, 20, state);
+        assertSame(first, second);
+        assertEquals(17, state.getCursor());
+
+        state.setCursor(0);
+        ColumnDescriptor other = KeyUtils.decodeKey("price(D:12,3)", state);
+        assertNotSame(first, other);
+        assertEquals(3, other.getValueDescriptor().getDecimalPrecision());
+        assertEquals(13, state.getCursor());
+    }
+}
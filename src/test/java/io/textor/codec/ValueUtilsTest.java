@@ -3,9 +3,16 @@ package io.textor.codec;
 import io.textor.DecodingState;
 import org.junit.jupiter.api.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -111,6 +118,21 @@ class ValueUtilsTest {
         public void decodeTooMany() {
             assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Binary.decode("ABCD", 10, state));
         }
+
+        @Test
+        @DisplayName("Round trip every tail length from an offset.")
+        public void roundTripOffsets() throws IOException {
+            for (int length = 1; length <= 64; ++length) {
+                String encoded = ValueUtils.Binary.encode(binary, 7, length);
+                assertEquals(encoded, ValueUtils.Binary.encode(binary, 7, length, new StringBuilder()).toString());
+                assertEquals(encoded.length(), ValueUtils.Binary.encodedLength(binary, length));
+
+                state.setCursor(0);
+                byte[] decoded = ValueUtils.Binary.decode(encoded + ",", length, state);
+                assertArrayEquals(Arrays.copyOfRange(binary, 7, 7 + length), decoded);
+                assertEquals(encoded.length() + 1, state.getCursor());
+            }
+        }
     }
 
     @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -260,6 +282,38 @@ class ValueUtilsTest {
             assertEquals(".12300", ValueUtils.Decimal.encode(1.123D, 5, 5));
         }
 
+        @Test
+        @DisplayName("Encode same as formatter.")
+        public void encodeSameAsFormatter() throws IOException {
+            Random random = new Random(20221109L);
+            double[] edges = {0D, -0D, 0.5D, 1.5D, 2.5D, 0.125D, 1.005D, 2.675D, 0.045D, 999.995D, -0.001D, 1e-9D,
+                    123456789.123456789D, 9.999999999999999e14D, 4.35D, 1e300D, Double.MAX_VALUE, Double.MIN_VALUE};
+            for (int precision = 0; precision <= 10; ++precision) {
+                for (int width = Math.max(precision, 1); width <= precision + 12; width += 3) {
+                    for (double edge : edges) {
+                        assertEncodedSameAsFormatter(edge, width, precision);
+                    }
+                    for (int n = 0; n < 200; ++n) {
+                        double decimal = (random.nextDouble() - 0.3D) * Math.pow(10, random.nextInt(16) - 4);
+                        assertEncodedSameAsFormatter(decimal, width, precision);
+                        // Values sitting exactly on or next to a rounding tie.
+                        double tie = (random.nextInt(2_000_000) + 0.5D) / Math.pow(10, precision);
+                        assertEncodedSameAsFormatter(tie, width, precision);
+                        assertEncodedSameAsFormatter(Math.nextUp(tie), width, precision);
+                        assertEncodedSameAsFormatter(Math.nextDown(tie), width, precision);
+                    }
+                }
+            }
+        }
+
+        private void assertEncodedSameAsFormatter(double decimal, int width, int precision) throws IOException {
+            String expected = FixedDecimal.formatSlow(decimal, width, precision);
+            String encoded = ValueUtils.Decimal.encode(decimal, width, precision);
+            assertEquals(expected, encoded, () -> decimal + " (" + width + "," + precision + ")");
+            assertEquals(expected, ValueUtils.Decimal.encode(decimal, width, precision, new StringWriter()).toString());
+            assertEquals(expected.length(), ValueUtils.Decimal.encodedLength(decimal, width, precision));
+        }
+
         @Test
         @DisplayName("Decode large width/precision decimal.")
         public void decodeLargeWidthPrecision() {
@@ -277,6 +331,50 @@ class ValueUtilsTest {
             assertEquals(12345.12345D, ValueUtils.Decimal.decode("12345.12345,", 10, 5, state));
         }
 
+        @Test
+        @DisplayName("Decode same as parsing double.")
+        public void decodeSameAsParseDouble() {
+            Random random = new Random(20221109L);
+            for (int n = 0; n < 20000; ++n) {
+                int precision = random.nextInt(12);
+                String text = random.nextInt(1_000_000) + "." + String.valueOf(random.nextLong() & Long.MAX_VALUE).substring(0, precision);
+                state.setCursor(0);
+                assertEquals(Double.parseDouble(text), ValueUtils.Decimal.decode(text + ",", 6 + precision, precision, state), text);
+                assertEquals(text.length() + 1, state.getCursor());
+            }
+            state.setCursor(0);
+            String digits = "123456789012345678901234.12345678901234567890";
+            assertEquals(Double.parseDouble(digits), ValueUtils.Decimal.decode(digits, 50, 20, state));
+        }
+
+        @Test
+        @DisplayName("Decode scaled long.")
+        public void decodeScaled() {
+            assertEquals(1230L, ValueUtils.Decimal.decodeScaled("12.3,", 6, 2, state));
+            assertEquals(5, state.getCursor());
+            state.setCursor(0);
+            assertEquals(5L, ValueUtils.Decimal.decodeScaled(".5", 3, 1, state));
+            assertEquals(-1, state.getCursor());
+            state.setCursor(0);
+            assertEquals(7L, ValueUtils.Decimal.decodeScaled("7.", 3, 0, state));
+            state.setCursor(0);
+            assertEquals(Long.MAX_VALUE, ValueUtils.Decimal.decodeScaled("922337203685477580.7", 20, 1, state));
+            state.setCursor(0);
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decodeScaled("922337203685477580.8", 20, 1, state));
+            state.setCursor(0);
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decodeScaled("92233720368547758.07", 20, 3, state));
+        }
+
+        @Test
+        @DisplayName("Decode malformed decimals.")
+        public void decodeMalformed() {
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decode(".", 3, 1, new DecodingState(0)));
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decode("12", 3, 1, new DecodingState(0)));
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decode("1,2", 3, 1, new DecodingState(0)));
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decode("1.2.3", 5, 3, new DecodingState(0)));
+            assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Decimal.decode("-1.2", 3, 1, new DecodingState(0)));
+        }
+
         @Test
         @DisplayName("Decode with different params.")
         public void decodeDifferentParams() {
@@ -327,5 +425,73 @@ class ValueUtilsTest {
         public void decodeInvalid() {
             assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Timestamp.decode(nowStr.replace('[', ']'), state));
         }
+
+        private ZonedDateTime randomTimestamp(Random random) {
+            List<String> regions = List.of("Asia/Shanghai", "America/New_York", "Europe/London", "UTC", "GMT+08:00", "Australia/Lord_Howe");
+            ZoneId zone = switch (random.nextInt(3)) {
+                case 0 -> ZoneId.of(regions.get(random.nextInt(regions.size())));
+                case 1 -> ZoneOffset.ofTotalSeconds(random.nextInt(-18 * 3600, 18 * 3600 + 1));
+                default -> ZoneOffset.ofTotalSeconds(random.nextInt(-72, 73) * 900);
+            };
+            long second = random.nextLong(-62_167_219_200L, 253_402_300_800L);
+            int nano = switch (random.nextInt(4)) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1000) * 1_000_000;
+                default -> random.nextInt(1_000_000_000);
+            };
+            return ZonedDateTime.ofInstant(Instant.ofEpochSecond(second, nano), zone);
+        }
+
+        @Test
+        @DisplayName("Encode same as formatter.")
+        public void encodeSameAsFormatter() {
+            Random random = new Random(12);
+            for (int count = 0; count < 2000; ++count) {
+                ZonedDateTime timestamp = randomTimestamp(random);
+                String expected = timestamp.format(DateTimeFormatter.ISO_ZONED_DATE_TIME);
+                assertEquals(expected, ValueUtils.Timestamp.encode(timestamp));
+                assertEquals(expected.length(), ValueUtils.Timestamp.encodedLength(timestamp));
+            }
+            ZonedDateTime wide = ZonedDateTime.of(12345, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+            assertEquals(wide.format(DateTimeFormatter.ISO_ZONED_DATE_TIME), ValueUtils.Timestamp.encode(wide));
+        }
+
+        @Test
+        @DisplayName("Decode same as parser.")
+        public void decodeSameAsParser() {
+            Random random = new Random(21);
+            EpochTimestamp epoch = new EpochTimestamp();
+            for (int count = 0; count < 2000; ++count) {
+                String encoded = randomTimestamp(random).format(DateTimeFormatter.ISO_ZONED_DATE_TIME);
+                ZonedDateTime expected = ZonedDateTime.parse(encoded, DateTimeFormatter.ISO_ZONED_DATE_TIME);
+                state.setCursor(0);
+                assertEquals(expected, ValueUtils.Timestamp.decode(encoded, state));
+                state.setCursor(0);
+                ValueUtils.Timestamp.decodeEpoch(encoded, epoch, state);
+                assertEquals(expected.toEpochSecond(), epoch.getEpochSecond());
+                assertEquals(expected.getNano(), epoch.getNano());
+                assertEquals(expected.getOffset(), epoch.getOffset());
+                assertEquals(expected.getZone(), epoch.getZone());
+                assertEquals(expected, epoch.toZonedDateTime());
+            }
+        }
+
+        @Test
+        @DisplayName("Decode non-canonical timestamps same as parser.")
+        public void decodeNonCanonical() {
+            String[] texts = {
+                    "2022-11-09T08:19+08:00", "2022-11-09t08:19:36z", "2022-11-09T08:19:36+09:00[Asia/Shanghai]",
+                    "2022-11-09T08:19:36.500+05:30:15", "+12022-11-09T08:19:36Z", "2022-11-09T08:19:36-00:00[UTC]",
+                    "2022-11-09T08:19:36Z[+03:00]"
+            };
+            for (String text : texts) {
+                state.setCursor(0);
+                assertEquals(ZonedDateTime.parse(text, DateTimeFormatter.ISO_ZONED_DATE_TIME), ValueUtils.Timestamp.decode(text, state));
+            }
+            for (String text : new String[] {"2022-02-29T08:19:36Z", "2022-11-09T24:00:00Z", "2022-11-09T08:19:36+19:00", "2022-11-09T08:19:36Z[Nowhere/Else]", "2022-11-09T08:19:36.1234567891Z"}) {
+                state.setCursor(0);
+                assertThrowsExactly(IllegalArgumentException.class, () -> ValueUtils.Timestamp.decode(text, state));
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package io.textor.columnar;
+
+import io.textor.RowDecodeException;
+import io.textor.codec.Codec;
+import io.textor.io.TextorWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarTableTest {
+    private final static String[] lines = {
+            "@TABLE(A)\"system_admin\",@_user_defined(D:3,1)10.9,_last_visit(T)2019-09-15T08:58:18.78886-04:00,_age(L)35",
+            "@TABLE(A)\"guest, \\\"anonymous\\\"\",_age(L)-1",
+            "_blob(B:5)01234567,_age(L)7,_last_visit(T)2023-01-01T00:00+08:00[Asia/Shanghai]",
+    };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Decode rows into column vectors.")
+    public void appendVectors() {
+        ColumnarTable table = new ColumnarTable();
+        for (int index = 0; index < lines.length; ++index) {
+            assertEquals(index, table.append(lines[index], index * 2));
+        }
+
+        assertEquals(3, table.getRowCount());
+        assertArrayEquals(new long[] {35L, -1L, 7L}, ((LongVector)table.getColumn("_age")).toArray());
+        DoubleVector userDefined = (DoubleVector)table.getAttribute("_user_defined");
+        assertEquals(10.9, userDefined.getDouble(0));
+        assertTrue(userDefined.isNull(1));
+        assertTrue(userDefined.isNull(2));
+        BytesVector name = (BytesVector)table.getAttribute("TABLE");
+        assertEquals("guest, \"anonymous\"", name.getString(1));
+        assertNull(name.getString(2));
+        assertArrayEquals(Codec.decode(lines[2], 2).getColumn("_blob").getBinary(), ((BytesVector)table.getColumn("_blob")).getBytes(2));
+        TimestampVector lastVisit = (TimestampVector)table.getColumn("_last_visit");
+        assertTrue(lastVisit.isNull(1));
+        assertEquals("Asia/Shanghai", lastVisit.getZone(2).getId());
+    }
+
+    @Test
+    @DisplayName("Row views encode the same as decoded rows.")
+    public void rowView() {
+        ColumnarTable table = new ColumnarTable();
+        for (int index = 0; index < lines.length; ++index) {
+            table.append(lines[index], index);
+        }
+        for (int index = 0; index < lines.length; ++index) {
+            assertEquals(index, table.getRow(index).getIndex());
+            assertEquals(Codec.encode(Codec.decode(lines[index], index)), Codec.encode(table.getRow(index)));
+        }
+        assertThrowsExactly(IllegalArgumentException.class, () -> table.getRow(lines.length));
+    }
+
+    @Test
+    @DisplayName("Failed rows leave the table unchanged.")
+    public void appendMalformed() {
+        ColumnarTable table = new ColumnarTable();
+        table.append(lines[0], 0);
+
+        RowDecodeException exception = assertThrowsExactly(RowDecodeException.class, () -> table.append("_age(L)36,@TABLE(A", 1));
+        assertEquals(1, exception.getIndex());
+        assertEquals(1, table.getRowCount());
+        assertEquals(1, table.getColumn("_age").size());
+
+        assertThrowsExactly(RowDecodeException.class, () -> table.append("_age(D:3,1)1.0", 2));
+        table.append(lines[1], 3);
+        assertEquals(-1L, ((LongVector)table.getColumn("_age")).getLong(1));
+    }
+
+    @Test
+    @DisplayName("Read a file into a table.")
+    public void readFile() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        Files.writeString(file, String.join("\n\n", lines) + "\n", StandardCharsets.US_ASCII);
+
+        ColumnarTable table = ColumnarTable.read(file);
+        assertEquals(3, table.getRowCount());
+        assertEquals(0, table.getIndex(0));
+        assertEquals(4, table.getIndex(2));
+    }
+
+    @Test
+    @DisplayName("Read a file with schema headers into a table.")
+    public void readSchemaFile() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        try (TextorWriter writer = new TextorWriter(file, true)) {
+            for (int index = 0; index < lines.length; ++index) {
+                writer.append(Codec.decode(lines[index], index));
+            }
+        }
+
+        ColumnarTable table = ColumnarTable.read(file);
+        assertEquals(3, table.getRowCount());
+        assertArrayEquals(new long[] {35L, -1L, 7L}, ((LongVector)table.getColumn("_age")).toArray());
+        assertEquals(Codec.encode(Codec.decode(lines[2], 2)), Codec.encode(table.getRow(2)));
+    }
+}
@@ -0,0 +1,146 @@
+package io.textor.index;
+
+import io.textor.Row;
+import io.textor.ValueType;
+import io.textor.codec.Codec;
+import io.textor.io.TextorReader;
+import io.textor.io.TextorWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueIndexTest {
+    private final static String[] tables = {"orders", "items", "users"};
+
+    @TempDir
+    Path dir;
+
+    private static Row row(int value) {
+        return Codec.decode("@TABLE(A)\"" + tables[value % 3] + "\",_id(L)" + (value * 7919 % 1000) + (value % 5 == 0 ? "" : ",_name(A)\"n\""), 0);
+    }
+
+    private Path write(int from, int to, Path file) throws IOException {
+        try (TextorWriter writer = new TextorWriter(file, true, true)) {
+            for (int n = from; n < to; ++n) {
+                writer.append(row(n));
+            }
+        }
+        return file;
+    }
+
+    private int[] scan(Path file, Predicate<Row> predicate) throws IOException {
+        List<Integer> rows = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file)) {
+            for (Row row : reader) {
+                if (predicate.test(row)) {
+                    rows.add(row.getIndex());
+                }
+            }
+        }
+        return rows.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    @DisplayName("Look up attribute and column values.")
+    public void lookup() throws IOException {
+        Path file = write(0, 5000, dir.resolve("rows.textor"));
+        ValueIndex tables = ValueIndex.build(file, "@TABLE", ValueType.ASCII);
+        ValueIndex ids = ValueIndex.build(file, "_id", ValueType.INTEGER);
+
+        assertArrayEquals(scan(file, row -> row.getAttribute("TABLE").getAsciiString().equals("items")), tables.equalTo("items"));
+        assertEquals(0, tables.equalTo("nothing").length);
+        assertArrayEquals(scan(file, row -> row.getColumn("_id").getLong() == 42), ids.equalTo(42));
+        assertArrayEquals(scan(file, row -> row.getColumn("_id").getLong() >= 100 && row.getColumn("_id").getLong() < 200), ids.range(100L, 200L));
+        assertArrayEquals(scan(file, row -> row.getColumn("_id").getLong() < 10), ids.range(null, 10));
+
+        try (TextorReader reader = new TextorReader(file)) {
+            for (int index : ids.equalTo(7)) {
+                assertEquals(7L, reader.readRow(index).getColumn("_id").getLong());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> ids.equalTo("42"));
+        assertThrows(IllegalArgumentException.class, () -> ValueIndex.build(file, "_id", ValueType.DECIMAL));
+    }
+
+    @Test
+    @DisplayName("Update and reopen an index as rows are appended.")
+    public void update() throws IOException {
+        Path file = write(0, 1000, dir.resolve("rows.textor"));
+        ValueIndex ids = ValueIndex.build(file, "_id", ValueType.INTEGER);
+        for (int batch = 1; batch <= 12; ++batch) {
+            write(batch * 1000, batch * 1000 + 1000, file);
+            assertEquals(1000, ids.update());
+        }
+        assertEquals(0, ids.update());
+
+        ValueIndex reopened = ValueIndex.open(file, "_id");
+        assertNotNull(reopened);
+        assertEquals(ids.getLineCount(), reopened.getLineCount());
+        int[] expected = scan(file, row -> row.getColumn("_id").getLong() >= 500 && row.getColumn("_id").getLong() < 520);
+        assertArrayEquals(expected, ids.range(500, 520));
+        assertArrayEquals(expected, reopened.range(500, 520));
+
+        write(13000, 13100, file);
+        assertEquals(100, reopened.update());
+        assertArrayEquals(scan(file, row -> row.getColumn("_id").getLong() == 3), reopened.equalTo(3L));
+        assertNull(ValueIndex.open(file, "_name"));
+        assertTrue(Files.exists(ValueIndex.pathOf(file, "_id")));
+    }
+
+    @Test
+    @DisplayName("Cut a torn last run on open, and index its lines again.")
+    public void tornRun() throws IOException {
+        Path file = write(0, 100, dir.resolve("rows.textor"));
+        ValueIndex ids = ValueIndex.build(file, "_id", ValueType.INTEGER);
+        int lines = ids.getLineCount();
+        write(100, 200, file);
+        assertEquals(100, ids.update());
+        Path path = ValueIndex.pathOf(file, "_id");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 500);
+        }
+
+        ValueIndex reopened = ValueIndex.open(file, "_id");
+        assertEquals(lines, reopened.getLineCount());
+        assertEquals(100, reopened.update());
+        int[] all = scan(file, row -> true);
+        assertArrayEquals(all, reopened.range(null, null));
+        assertArrayEquals(all, ValueIndex.open(file, "_id").range(null, null));
+        long last = row(199).getColumn("_id").getLong();
+        assertArrayEquals(scan(file, row -> row.getColumn("_id").getLong() == last), reopened.equalTo(last));
+    }
+
+    @Test
+    @DisplayName("Leave an unterminated last line to the next update.")
+    public void unterminated() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        // The partial line doesn't decode on its own.
+        Files.writeString(file, "_id(L)1\n_id(L)2\n_id(L)12,@TABLE(A)\"ord");
+        ValueIndex ids = ValueIndex.build(file, "_id", ValueType.INTEGER);
+        assertEquals(2, ids.getLineCount());
+        assertEquals(0, ids.equalTo(12).length);
+        assertEquals(0, ids.update());
+
+        Files.writeString(file, "ers\"\n_id(L)5\n_id(L)6,@TABLE(A)\"it", StandardOpenOption.APPEND);
+        assertEquals(2, ids.update());
+        assertEquals(4, ids.getLineCount());
+        assertArrayEquals(new int[] {2}, ids.equalTo(12));
+        assertArrayEquals(new int[] {3}, ids.equalTo(5));
+        assertEquals(0, ids.equalTo(6).length);
+
+        Files.writeString(file, "ems\"\n", StandardOpenOption.APPEND);
+        assertEquals(1, ids.update());
+        assertArrayEquals(new int[] {4}, ids.equalTo(6));
+    }
+}
@@ -0,0 +1,126 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedTextorTest {
+    @TempDir
+    Path dir;
+
+    private static Row row(long value) {
+        return value / 300 % 2 == 0
+                ? Codec.decode("@TABLE(A)\"orders\",_id(L)" + value + ",_note(A)\"a rather repetitive note\"", 0)
+                : Codec.decode("@TABLE(A)\"items\",_id(L)" + value, 0);
+    }
+
+    private List<Row> write(Path file, int count, boolean schemaHeaders) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (CompressedTextorWriter writer = new CompressedTextorWriter(file, 4096, schemaHeaders)) {
+            for (int n = 0; n < count; ++n) {
+                Row row = row(n);
+                rows.add(Codec.decode(Codec.encode(row), writer.append(row)));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Read rows back in order from compressed blocks.")
+    public void readOrdered() throws IOException {
+        for (boolean schemaHeaders : new boolean[]{false, true}) {
+            Path file = dir.resolve("rows-" + schemaHeaders + ".textorz");
+            List<Row> rows = write(file, 5000, schemaHeaders);
+            try (CompressedTextorReader reader = new CompressedTextorReader(file)) {
+                assertTrue(reader.getBlockCount() > 10);
+                List<Row> read = new ArrayList<>();
+                assertEquals(5000, reader.forEachOrdered(read::add));
+                for (int n = 0; n < rows.size(); ++n) {
+                    assertEquals(rows.get(n).getIndex(), read.get(n).getIndex());
+                    assertEquals(Codec.encode(rows.get(n)), Codec.encode(read.get(n)));
+                }
+                AtomicLong sum = new AtomicLong();
+                assertEquals(5000, reader.forEach(row -> sum.addAndGet(row.getColumn("_id").getLong())));
+                assertEquals(5000L * 4999 / 2, sum.get());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Read single rows through the block directory.")
+    public void readRow() throws IOException {
+        Path file = dir.resolve("rows.textorz");
+        List<Row> rows = write(file, 3000, true);
+        try (CompressedTextorReader reader = new CompressedTextorReader(file)) {
+            for (int n = rows.size() - 1; n >= 0; n -= 101) {
+                Row row = reader.readRow(rows.get(n).getIndex());
+                assertNotNull(row);
+                assertEquals(Codec.encode(rows.get(n)), Codec.encode(row));
+            }
+            assertNull(reader.readRow(0) /* schema header */);
+            assertNull(reader.readRow(reader.getLineCount()));
+            assertEquals(0, reader.blockOf(0));
+            assertEquals(reader.getBlockCount() - 1, reader.blockOf(reader.getLineCount() - 1));
+        }
+        assertTrue(Files.size(file) * 3 < rows.stream().mapToLong(row -> Codec.encode(row).length()).sum());
+    }
+
+    @Test
+    @DisplayName("Stop decoding running blocks once one fails.")
+    public void abort() throws Exception {
+        Path file = dir.resolve("rows.textorz");
+        write(file, 2000, false);
+        try (CompressedTextorReader reader = new CompressedTextorReader(file)) {
+            int blockCount = reader.getBlockCount();
+            ExecutorService executor = Executors.newFixedThreadPool(blockCount);
+            CountDownLatch failed = new CountDownLatch(1);
+            AtomicInteger delivered = new AtomicInteger();
+            try (CompressedTextorReader parallel = new CompressedTextorReader(file, executor)) {
+                // Every other block holds on its first row until the first block has failed.
+                assertThrowsExactly(IllegalStateException.class, () -> parallel.forEach(row -> {
+                    if (row.getIndex() == 0) {
+                        throw new IllegalStateException("Failed on purpose.");
+                    }
+                    delivered.incrementAndGet();
+                    try {
+                        failed.await();
+                    }
+                    catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            finally {
+                failed.countDown();
+                executor.shutdown();
+                assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            }
+            // At most the first row of each other block, not the rest of them.
+            assertTrue(delivered.get() < blockCount);
+        }
+    }
+
+    @Test
+    @DisplayName("Reject a file that is not block-compressed.")
+    public void notCompressed() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        Files.writeString(file, "@TABLE(A)\"orders\",_id(L)1\n");
+        assertThrows(IOException.class, () -> new CompressedTextorReader(file));
+    }
+}
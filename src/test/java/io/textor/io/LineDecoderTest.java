@@ -0,0 +1,53 @@
+package io.textor.io;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.Schema;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineDecoderTest {
+    private final static String line = "@TABLE(A)\"items\",_id(L)1,_name(A)\"item 0\"";
+
+    @Test
+    @DisplayName("Take in blank, schema header and dictionary lines, and decode rows with them.")
+    public void lines() {
+        Row row = Codec.decode(line, 0);
+        Schema schema = Schema.of(row);
+        AsciiDictionary dictionary = new AsciiDictionary();
+        String values = Codec.encode(row, schema);
+        LineDecoder decoder = new LineDecoder();
+
+        assertFalse(decoder.apply(" \t", 0));
+        assertTrue(decoder.apply(line, 1));
+        assertEquals(Codec.encode(row), Codec.encode(decoder.decode(line, null, null, 1)));
+        assertFalse(decoder.apply(Codec.encodeSchema(schema), 2));
+        assertNotNull(decoder.getSchema());
+        assertFalse(decoder.apply("$0=\"item 0\"", 3));
+        assertEquals(1, decoder.getDictionary().size());
+        assertTrue(decoder.apply(values, 4));
+        Row decoded = decoder.decode(values, null, null, 4);
+        assertEquals(4, decoded.getIndex());
+        assertEquals(Codec.encode(row), Codec.encode(decoded));
+        assertFalse(decoder.apply("$", 5));
+        assertEquals(0, decoder.getDictionary().size());
+
+        decoder.reset();
+        assertNull(decoder.getSchema());
+        assertSame(dictionary, new LineDecoder(schema, dictionary).getDictionary());
+    }
+
+    @Test
+    @DisplayName("Fail with the line index.")
+    public void errors() {
+        LineDecoder decoder = new LineDecoder();
+        assertEquals(7, assertThrowsExactly(RowDecodeException.class, () -> decoder.apply("#@TABLE(A)", 7)).getIndex());
+        assertEquals(8, assertThrowsExactly(RowDecodeException.class, () -> decoder.apply("$1=", 8)).getIndex());
+        assertEquals(9, assertThrowsExactly(RowDecodeException.class, () -> decoder.decode("_id(L)x1", null, null, 9)).getIndex());
+        assertThrowsExactly(IllegalArgumentException.class, () -> new LineDecoder(null, null));
+    }
+}
@@ -0,0 +1,106 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTextorReaderTest {
+    @TempDir
+    Path dir;
+
+    private Path writeRows(int count) throws IOException {
+        // Mixes blank lines, CRLF endings and schema headers, so chunk boundaries land on all kinds of lines.
+        Random random = new Random(7);
+        StringBuilder content = new StringBuilder();
+        for (int n = 0; n < count; ++n) {
+            switch (random.nextInt(10)) {
+                case 0 -> content.append('\n');
+                case 1 -> content.append("#@TABLE(A),_id(L)\n");
+                default -> {
+                }
+            }
+            if (content.indexOf("#") == -1) {
+                content.append("@TABLE(A)\"orders\",_id(L)").append(n);
+            }
+            else {
+                content.append("\"orders\",").append(n);
+            }
+            content.append(random.nextBoolean() ? "\r\n" : "\n");
+        }
+        Path file = dir.resolve("rows.textor");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    private List<String> readSequential(Path file) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file)) {
+            for (Row row : reader) {
+                rows.add(row.getIndex() + ":" + Codec.encode(row));
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Ordered scan equals sequential read.")
+    public void forEachOrdered() throws IOException {
+        Path file = writeRows(2000);
+        List<String> rows = new ArrayList<>();
+        ExecutorService executor = Executors.newWorkStealingPool(4);
+        try (ParallelTextorReader reader = new ParallelTextorReader(file, 100, executor)) {
+            assertEquals(2000, reader.forEachOrdered(row -> rows.add(row.getIndex() + ":" + Codec.encode(row))));
+        }
+        finally {
+            executor.shutdown();
+        }
+        assertEquals(readSequential(file), rows);
+    }
+
+    @Test
+    @DisplayName("Unordered scan delivers every row with its index.")
+    public void forEachUnordered() throws IOException {
+        Path file = writeRows(2000);
+        ConcurrentLinkedQueue<Row> rows = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ParallelTextorReader reader = new ParallelTextorReader(file, 333, executor)) {
+            assertEquals(2000, reader.forEach(rows::add));
+        }
+        finally {
+            executor.shutdown();
+        }
+        List<String> sorted = rows.stream()
+                .sorted(Comparator.comparingInt(Row::getIndex))
+                .map(row -> row.getIndex() + ":" + Codec.encode(row))
+                .toList();
+        assertEquals(readSequential(file), sorted);
+    }
+
+    @Test
+    @DisplayName("Malformed line fails with its line number.")
+    public void forEachMalformed() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        Files.writeString(file, "_id(L)1\n\n_id(L)2\n_id(L\n_id(L)4\n", StandardCharsets.US_ASCII);
+        try (ParallelTextorReader reader = new ParallelTextorReader(file, 8, Runnable::run)) {
+            RowDecodeException exception = assertThrowsExactly(RowDecodeException.class, () -> reader.forEachOrdered(row -> {}));
+            assertEquals(3, exception.getIndex());
+        }
+    }
+}
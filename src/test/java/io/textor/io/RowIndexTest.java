@@ -0,0 +1,186 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowIndexTest {
+    @TempDir
+    Path dir;
+
+    private static Row row(long value) {
+        // Columns change every 700 rows, so that schema headers are spread over index blocks.
+        return value / 700 % 2 == 0
+                ? Codec.decode("@TABLE(A)\"orders\",_id(L)" + value, 0)
+                : Codec.decode("@TABLE(A)\"items\",_id(L)" + value + ",_name(A)\"item " + value + "\"", 0);
+    }
+
+    private List<Row> readAll(Path file) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file)) {
+            for (Row row : reader) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private void checkRandomReads(Path file, List<Row> rows) throws IOException {
+        try (TextorReader reader = new TextorReader(file)) {
+            for (int n = rows.size() - 1; n >= 0; n -= 37) {
+                Row expected = rows.get(n);
+                Row row = reader.readRow(expected.getIndex());
+                assertNotNull(row);
+                assertEquals(expected.getIndex(), row.getIndex());
+                assertEquals(Codec.encode(expected), Codec.encode(row));
+            }
+            int from = rows.get(1000).getIndex(), to = rows.get(1500).getIndex();
+            List<Row> range = reader.readRows(from, to);
+            assertEquals(500, range.size());
+            assertEquals(Codec.encode(rows.get(1499)), Codec.encode(range.get(499)));
+            assertNull(reader.readRow(rows.get(rows.size() - 1).getIndex() + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Read rows at random through the index the writer keeps.")
+    public void readRow() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        try (TextorWriter writer = new TextorWriter(file, true, true)) {
+            for (int n = 0; n < 3000; ++n) {
+                writer.append(row(n));
+            }
+        }
+        assertTrue(Files.exists(RowIndex.pathOf(file)));
+
+        List<Row> rows = readAll(file);
+        assertEquals(3000, rows.size());
+        try (RowIndex index = RowIndex.open(file)) {
+            assertNotNull(index);
+            assertEquals(3000 + 5 /* headers */, index.getLineCount());
+            assertEquals(Files.size(file), index.getEndOffset());
+        }
+        checkRandomReads(file, rows);
+    }
+
+    @Test
+    @DisplayName("Catch up with lines appended without the index.")
+    public void catchUp() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        try (TextorWriter writer = new TextorWriter(file, true, true)) {
+            for (int n = 0; n < 1200; ++n) {
+                writer.append(row(n));
+            }
+        }
+        try (TextorWriter writer = new TextorWriter(file, true, false)) {
+            for (int n = 1200; n < 2000; ++n) {
+                writer.append(row(n));
+            }
+        }
+        Files.writeString(file, Codec.encode(row(2000), Schema.of(row(2000))), StandardOpenOption.APPEND);
+
+        // Lines past the index are read on from its end.
+        List<Row> rows = readAll(file);
+        checkRandomReads(file, rows);
+
+        try (TextorWriter writer = new TextorWriter(file, true, true)) {
+            for (int n = 2001; n < 2600; ++n) {
+                writer.append(row(n));
+            }
+        }
+        rows = readAll(file);
+        assertEquals(2600, rows.size());
+        try (RowIndex index = RowIndex.open(file)) {
+            assertNotNull(index);
+            assertEquals(Files.size(file), index.getEndOffset());
+        }
+        checkRandomReads(file, rows);
+    }
+
+    @Test
+    @DisplayName("Rebuild an index that doesn't fit the file, and seek without one.")
+    public void rebuild() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        try (TextorWriter writer = new TextorWriter(file, true, true)) {
+            for (int n = 0; n < 2000; ++n) {
+                writer.append(row(n));
+            }
+        }
+        Files.write(file, Files.readAllLines(file).subList(0, 1700));
+        assertNull(RowIndex.open(file));
+        Files.delete(RowIndex.pathOf(file));
+        checkRandomReads(file, readAll(file));
+
+        try (TextorWriter writer = new TextorWriter(file, true, true)) {
+            for (int n = 2000; n < 2500; ++n) {
+                writer.append(row(n));
+            }
+        }
+        List<Row> rows = readAll(file);
+        try (RowIndex index = RowIndex.open(file)) {
+            assertNotNull(index);
+            assertEquals(Files.size(file), index.getEndOffset());
+        }
+        checkRandomReads(file, rows);
+    }
+
+    @Test
+    @DisplayName("Seek in a file written with the dictionary, over dictionary resets.")
+    public void dictionary() throws IOException {
+        // Every name repeats once, so it gets an id and the dictionary fills up and resets a few times.
+        Path file = dir.resolve("rows.textor");
+        List<Row> expected = new ArrayList<>();
+        try (TextorWriter writer = new TextorWriter(file, true, true, true)) {
+            for (int n = 0; n < 20000; ++n) {
+                Row row = Codec.decode("@TABLE(A)\"items\",_id(L)" + n + ",_name(A)\"item " + n / 2 + "\"", 0);
+                expected.add(row);
+                writer.append(row);
+            }
+        }
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.stream().filter("$"::equals).count());
+        assertEquals(List.of("$0=\"items\"", "$1=\"item 0\"", "$0,1,$1", "$0,2,\"item 1\"", "$2=\"item 1\"", "$0,3,$2"), lines.subList(2, 8));
+
+        List<Row> rows = readAll(file);
+        assertEquals(20000, rows.size());
+        for (int n = 0; n < rows.size(); ++n) {
+            assertEquals(Codec.encode(expected.get(n)), Codec.encode(rows.get(n)));
+        }
+        assertSame(rows.get(100).getAttribute(0).getAsciiString(), rows.get(101).getAttribute(0).getAsciiString());
+        checkRandomReads(file, rows);
+
+        List<Row> parallel = new ArrayList<>();
+        try (ParallelTextorReader reader = new ParallelTextorReader(file, 4096, java.util.concurrent.ForkJoinPool.commonPool())) {
+            reader.forEachOrdered(parallel::add);
+        }
+        assertEquals(rows.size(), parallel.size());
+        for (int n = 0; n < rows.size(); n += 7) {
+            assertEquals(rows.get(n).getIndex(), parallel.get(n).getIndex());
+            assertEquals(Codec.encode(rows.get(n)), Codec.encode(parallel.get(n)));
+        }
+
+        // Appending again starts from a reset, and the index catches up with it.
+        try (TextorWriter writer = new TextorWriter(file, true, true, true)) {
+            for (int n = 20000; n < 21000; ++n) {
+                writer.append(Codec.decode("@TABLE(A)\"items\",_id(L)" + n + ",_name(A)\"item " + n / 2 + "\"", 0));
+            }
+        }
+        Files.delete(RowIndex.pathOf(file));
+        new TextorWriter(file, true, true, true).close();
+        rows = readAll(file);
+        assertEquals(21000, rows.size());
+        checkRandomReads(file, rows);
+    }
+}
@@ -0,0 +1,54 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextorConverterTest {
+    private final static String[] lines = {
+            "@TABLE(A)\"system_admin\",@_user_defined(D:3,1)10.9,_last_visit(T)2019-09-15T08:58:18.78886-04:00,_age(L)35",
+            "@TABLE(A)\"guest\",@_user_defined(D:3,1)1.0,_last_visit(T)2020-01-01T00:00:00Z,_age(L)-1",
+            "_blob(B:5)01234567,_age(L)7",
+    };
+
+    @TempDir
+    Path dir;
+
+    private List<String> readEncoded(Path file) throws IOException {
+        List<String> encoded = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file)) {
+            for (Row row : reader) {
+                encoded.add(Codec.encode(row));
+            }
+        }
+        return encoded;
+    }
+
+    @Test
+    @DisplayName("Convert to schema headers and back.")
+    public void convertRoundTrip() throws IOException {
+        Path source = dir.resolve("source.textor");
+        Path headers = dir.resolve("headers.textor");
+        Path classic = dir.resolve("classic.textor");
+        Files.writeString(source, String.join("\n", lines) + "\n", StandardCharsets.US_ASCII);
+
+        assertEquals(3, TextorConverter.toSchemaHeaders(source, headers));
+        assertEquals(5, Files.readAllLines(headers).size());
+        assertTrue(Files.size(headers) < Files.size(source));
+        assertEquals(readEncoded(source), readEncoded(headers));
+
+        assertEquals(3, TextorConverter.toSelfDescribing(headers, classic));
+        assertEquals(readEncoded(source), Files.readAllLines(classic));
+    }
+}
@@ -0,0 +1,213 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextorPublisherTest {
+    @TempDir
+    Path dir;
+
+    private static class Collector implements Flow.Subscriber<Row> {
+        private final List<Row> rows = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final long perRequest;
+        private Flow.Subscription subscription;
+
+        private Collector(long perRequest) {
+            this.perRequest = perRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (perRequest > 0) {
+                subscription.request(perRequest);
+            }
+        }
+
+        @Override
+        public void onNext(Row row) {
+            rows.add(row);
+            if (perRequest == 1) {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    private static void awaitRows(Collector collector, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (collector.rows.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // Give extra rows, if any, the time to show up.
+        Thread.sleep(50);
+    }
+
+    private static String content(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int n = 0; n < count; ++n) {
+            builder.append("@TABLE(A)\"events\",_id(L)").append(n).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @Test
+    @DisplayName("Publish all rows of a file one request at a time.")
+    public void publishFile() throws Exception {
+        Path file = dir.resolve("events.textor");
+        Files.writeString(file, content(1000));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Collector collector = new Collector(1);
+            new TextorPublisher(file, executor, 16).subscribe(collector);
+            collector.done.get(10, TimeUnit.SECONDS);
+            assertEquals(1000, collector.rows.size());
+            for (int n = 0; n < 1000; ++n) {
+                assertEquals(n, collector.rows.get(n).getIndex());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deliver no more rows than requested.")
+    public void demand() throws Exception {
+        Path file = dir.resolve("events.textor");
+        Files.writeString(file, content(100));
+        Collector collector = new Collector(5);
+        new TextorPublisher(file).subscribe(collector);
+        awaitRows(collector, 5);
+        assertEquals(5, collector.rows.size());
+        assertFalse(collector.done.isDone());
+
+        collector.subscription.request(Long.MAX_VALUE);
+        collector.done.get(10, TimeUnit.SECONDS);
+        assertEquals(100, collector.rows.size());
+    }
+
+    @Test
+    @DisplayName("Signal a decode error with its row index from a stream.")
+    public void decodeError() throws Exception {
+        String text = "#@TABLE(A),_id(L)\n\"events\",1\n\n\"events\",x\n";
+        TextorPublisher publisher = new TextorPublisher(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+        Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(collector);
+        Exception exception = assertThrows(Exception.class, () -> collector.done.get(10, TimeUnit.SECONDS));
+        RowDecodeException cause = assertInstanceOf(RowDecodeException.class, exception.getCause());
+        assertEquals(3, cause.getIndex());
+        assertEquals(1, collector.rows.size());
+        assertEquals(1L, collector.rows.get(0).getColumn("_id").getLong());
+
+        Collector second = new Collector(1);
+        publisher.subscribe(second);
+        assertThrows(Exception.class, () -> second.done.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Stop on cancel and reject an illegal request.")
+    public void cancel() throws Exception {
+        Path file = dir.resolve("events.textor");
+        Files.writeString(file, content(100));
+        Collector collector = new Collector(3);
+        new TextorPublisher(file).subscribe(collector);
+        awaitRows(collector, 3);
+        collector.subscription.cancel();
+        collector.subscription.request(10);
+        Thread.sleep(50);
+        assertEquals(3, collector.rows.size());
+
+        Collector illegal = new Collector(0);
+        new TextorPublisher(file).subscribe(illegal);
+        illegal.subscription.request(0);
+        Exception exception = assertThrows(Exception.class, () -> illegal.done.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Schedule no task after the subscription is done.")
+    public void noTaskAfterDone() throws Exception {
+        // A request from onComplete used to reschedule the drain task, which an executor shut down meanwhile rejected.
+        Path file = dir.resolve("events.textor");
+        Files.writeString(file, content(10));
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicInteger executed = new AtomicInteger();
+        AtomicInteger executedAtEnd = new AtomicInteger(-1);
+        Executor executor = task -> {
+            executed.incrementAndGet();
+            pool.execute(task);
+        };
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        new TextorPublisher(file, executor, 16).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Row row) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                executedAtEnd.set(executed.get());
+                subscription.request(1);
+                done.complete(null);
+            }
+        });
+        done.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(executedAtEnd.get(), executed.get());
+
+        // Nor does a request or a cancel after the drain task has finished and the executor is gone.
+        ExecutorService after = Executors.newSingleThreadExecutor();
+        Collector collector = new Collector(Long.MAX_VALUE);
+        new TextorPublisher(file, after, 16).subscribe(collector);
+        collector.done.get(10, TimeUnit.SECONDS);
+        after.shutdown();
+        assertTrue(after.awaitTermination(10, TimeUnit.SECONDS));
+        assertDoesNotThrow(() -> collector.subscription.request(1));
+        assertDoesNotThrow(collector.subscription::cancel);
+    }
+}
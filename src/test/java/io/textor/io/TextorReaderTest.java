@@ -0,0 +1,129 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.RowDecodeException;
+import io.textor.codec.Codec;
+import io.textor.codec.Filter;
+import io.textor.codec.Predicate;
+import io.textor.codec.Projection;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextorReaderTest {
+    private final static String[] lines = {
+            "@TABLE(A)\"system_admin\",@_user_defined(D:3,1)10.9,_last_visit(T)2019-09-15T08:58:18.78886-04:00,_age(L)35",
+            "@TABLE(A)\"guest, \\\"anonymous\\\"\",_age(L)-1",
+            "_blob(B:5)01234567,_name(A)\"a much longer value that runs over several small map windows\"",
+    };
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("rows.textor");
+        Files.writeString(file, content, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    private List<Row> readAll(Path file, long windowSize) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file, windowSize)) {
+            for (Row row : reader) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("Read rows with line numbers as indices.")
+    public void readLines() throws IOException {
+        Path file = write(String.join("\n", lines) + "\n");
+        List<Row> rows = readAll(file, 1 << 20);
+
+        assertEquals(lines.length, rows.size());
+        for (int index = 0; index < lines.length; ++index) {
+            assertEquals(index, rows.get(index).getIndex());
+            assertEquals(Codec.encode(Codec.decode(lines[index], index)), Codec.encode(rows.get(index)));
+        }
+    }
+
+    @Test
+    @DisplayName("Read through map windows smaller than a line.")
+    public void readSmallWindows() throws IOException {
+        Path file = write(String.join("\n", lines));
+        List<Row> rows = readAll(file, 16);
+
+        assertEquals(lines.length, rows.size());
+        assertEquals("a much longer value that runs over several small map windows", rows.get(2).getColumn("_name").getAsciiString());
+    }
+
+    @Test
+    @DisplayName("Skip blank lines and carriage returns.")
+    public void readBlankAndCarriageReturn() throws IOException {
+        Path file = write(lines[0] + "\r\n\r\n   \n" + lines[1] + "\r\n");
+        List<Row> rows = readAll(file, 1 << 20);
+
+        assertEquals(2, rows.size());
+        assertEquals(0, rows.get(0).getIndex());
+        assertEquals(3, rows.get(1).getIndex());
+        assertEquals(-1L, rows.get(1).getColumn("_age").getInteger());
+    }
+
+    @Test
+    @DisplayName("Read empty file.")
+    public void readEmpty() throws IOException {
+        assertTrue(readAll(write(""), 1 << 20).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Report the row index of an illegal line.")
+    public void readIllegal() throws IOException {
+        Path file = write(lines[0] + "\n_age(X)1\n");
+        try (TextorReader reader = new TextorReader(file)) {
+            assertNotNull(reader.read());
+            RowDecodeException exception = assertThrowsExactly(RowDecodeException.class, reader::read);
+            assertEquals(1, exception.getIndex());
+        }
+    }
+
+    @Test
+    @DisplayName("Read projected cells only.")
+    public void readProjection() throws IOException {
+        Path file = write(String.join("\n", lines) + "\n");
+        Projection projection = new Projection("_age", "@TABLE");
+        try (TextorReader reader = new TextorReader(file)) {
+            Row row = reader.read(projection);
+            assertEquals(35L, row.getColumn("_age").getLong());
+            assertEquals("system_admin", row.getAttribute("TABLE").getAsciiString());
+            assertEquals(1, row.getColumnCount());
+            assertEquals(1, row.getAttributeCount());
+            assertEquals(1, reader.read(projection).getIndex());
+            assertEquals(0, reader.read(projection).getAttributeCount());
+            assertNull(reader.read(projection));
+        }
+    }
+
+    @Test
+    @DisplayName("Read rows passing the filter only.")
+    public void readFilter() throws IOException {
+        Path file = write(String.join("\n", lines) + "\n");
+        Filter filter = new Filter(Predicate.isNotNull("@TABLE"), Predicate.lessThan("_age", 0));
+        try (TextorReader reader = new TextorReader(file)) {
+            Row row = reader.read(filter, null);
+            assertEquals(1, row.getIndex());
+            assertEquals(Codec.encode(Codec.decode(lines[1], 1)), Codec.encode(row));
+            assertNull(reader.read(filter, null));
+        }
+    }
+}
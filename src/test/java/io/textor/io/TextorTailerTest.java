@@ -0,0 +1,100 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextorTailerTest {
+    @TempDir
+    Path dir;
+
+    private static Row row(long value) {
+        return Codec.decode("@TABLE(A)\"events\",_id(L)" + value, 0);
+    }
+
+    @Test
+    @DisplayName("Follow rows as another thread appends them.")
+    public void follow() throws Exception {
+        Path file = dir.resolve("events.textor");
+        Files.createFile(file);
+        try (TextorTailer tailer = new TextorTailer(file);
+             TextorWriter writer = new TextorWriter(file, true)) {
+            CompletableFuture<Void> appender = CompletableFuture.runAsync(() -> {
+                try {
+                    for (int n = 0; n < 200; ++n) {
+                        writer.appendDurable(row(n));
+                        if (n % 50 == 0) {
+                            Thread.sleep(20);
+                        }
+                    }
+                }
+                catch (IOException | InterruptedException exception) {
+                    throw new RuntimeException(exception);
+                }
+            });
+            for (int n = 0; n < 200; ++n) {
+                Row row = tailer.poll(Duration.ofSeconds(10));
+                assertNotNull(row);
+                assertEquals(n + 1 /* schema header */, row.getIndex());
+                assertEquals(n, row.getColumn("_id").getLong());
+            }
+            appender.get();
+            assertNull(tailer.poll(Duration.ofMillis(5)));
+        }
+    }
+
+    @Test
+    @DisplayName("Hold a partial last line until it completes.")
+    public void partialLine() throws IOException {
+        Path file = dir.resolve("events.textor");
+        String encoded = Codec.encode(row(7));
+        Files.writeString(file, Codec.encode(row(6)) + "\n" + encoded.substring(0, 10));
+        try (TextorTailer tailer = new TextorTailer(file)) {
+            assertEquals(6, tailer.poll(Duration.ZERO).getColumn("_id").getLong());
+            assertNull(tailer.poll(Duration.ofMillis(20)));
+            Files.writeString(file, encoded.substring(10) + "\n", StandardOpenOption.APPEND);
+            Row row = tailer.poll(Duration.ofSeconds(10));
+            assertNotNull(row);
+            assertEquals(1, row.getIndex());
+            assertEquals(7, row.getColumn("_id").getLong());
+        }
+    }
+
+    @Test
+    @DisplayName("Resume from a committed checkpoint.")
+    public void resume() throws IOException {
+        Path file = dir.resolve("events.textor");
+        Path checkpoint = dir.resolve("events.checkpoint");
+        try (TextorWriter writer = new TextorWriter(file, true)) {
+            for (int n = 0; n < 10; ++n) {
+                writer.append(row(n));
+            }
+        }
+        try (TextorTailer tailer = new TextorTailer(file, checkpoint)) {
+            for (int n = 0; n < 4; ++n) {
+                tailer.take();
+            }
+            tailer.commit();
+            tailer.take();
+        }
+        try (TextorTailer tailer = new TextorTailer(file, checkpoint)) {
+            assertNotNull(tailer.getSchema());
+            Row row = tailer.take();
+            assertEquals(5, row.getIndex());
+            assertEquals(4, row.getColumn("_id").getLong());
+        }
+        Files.writeString(file, "x");
+        assertThrows(IOException.class, () -> new TextorTailer(file, checkpoint));
+    }
+}
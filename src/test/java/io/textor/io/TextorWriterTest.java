@@ -0,0 +1,158 @@
+package io.textor.io;
+
+import io.textor.Row;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextorWriterTest {
+    @TempDir
+    Path dir;
+
+    private static Row row(long value) {
+        return Codec.decode("@TABLE(A)\"orders\",_id(L)" + value, 0);
+    }
+
+    @Test
+    @DisplayName("Append and read back rows.")
+    public void appendRead() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        try (TextorWriter writer = new TextorWriter(file, 64, 4, Duration.ZERO)) {
+            for (int n = 0; n < 100; ++n) {
+                assertEquals(n, writer.append(row(n)));
+            }
+            writer.commit(99);
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(100, lines.size());
+        assertEquals(Codec.encode(row(42)), lines.get(42));
+    }
+
+    @Test
+    @DisplayName("Append to an existing file with unterminated last line.")
+    public void appendExisting() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        Files.writeString(file, Codec.encode(row(0)) + "\n" + Codec.encode(row(1)));
+        try (TextorWriter writer = new TextorWriter(file)) {
+            assertEquals(2, writer.getRowCount());
+            assertEquals(2, writer.appendDurable(row(2)));
+        }
+
+        try (TextorReader reader = new TextorReader(file)) {
+            Row row = null;
+            for (Row r : reader) {
+                row = r;
+            }
+            assertNotNull(row);
+            assertEquals(2, row.getIndex());
+            assertEquals(2L, row.getColumn("_id").getInteger());
+        }
+    }
+
+    @Test
+    @DisplayName("Count existing lines through the row index when reopening.")
+    public void appendExistingIndexed() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        try (TextorWriter writer = new TextorWriter(file, false, true)) {
+            for (int n = 0; n < 100; ++n) {
+                writer.append(row(n));
+            }
+        }
+        long lines = Files.readAllLines(file).size();
+        // Appended without the index, and left unterminated.
+        Files.writeString(file, Codec.encode(row(100)) + "\n" + Codec.encode(row(101)), StandardOpenOption.APPEND);
+        try (TextorWriter writer = new TextorWriter(file, false, true)) {
+            assertEquals(lines + 2, writer.getRowCount());
+            assertEquals(lines + 2, writer.appendDurable(row(102)));
+        }
+        try (TextorWriter writer = new TextorWriter(file, false, true)) {
+            assertEquals(lines + 3, writer.getRowCount());
+        }
+        try (TextorReader reader = new TextorReader(file)) {
+            Row row = reader.readRow((int)lines + 2);
+            assertNotNull(row);
+            assertEquals(102L, row.getColumn("_id").getInteger());
+        }
+    }
+
+    @Test
+    @DisplayName("Group commit from concurrent appenders.")
+    public void groupCommit() throws Exception {
+        Path file = dir.resolve("rows.textor");
+        int threads = 8, rows = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (TextorWriter writer = new TextorWriter(file, 4096, 16, Duration.ofMillis(1))) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; ++t) {
+                int base = t * rows;
+                futures.add(executor.submit(() -> {
+                    for (int n = 0; n < rows; ++n) {
+                        writer.appendDurable(row(base + n));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(threads * rows, writer.getRowCount());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        Set<Long> ids = new ConcurrentSkipListSet<>();
+        try (TextorReader reader = new TextorReader(file)) {
+            reader.forEach(row -> ids.add(row.getColumn("_id").getInteger()));
+        }
+        assertEquals(threads * rows, ids.size());
+    }
+
+    @Test
+    @DisplayName("Commit a row that was never appended.")
+    public void commitUnknown() throws IOException {
+        try (TextorWriter writer = new TextorWriter(dir.resolve("rows.textor"))) {
+            assertThrowsExactly(IllegalArgumentException.class, () -> writer.commit(0));
+        }
+    }
+
+    @Test
+    @DisplayName("Write a schema header whenever columns change.")
+    public void appendSchemaHeaders() throws IOException {
+        Path file = dir.resolve("rows.textor");
+        Row other = Codec.decode("@TABLE(A)\"orders\",_id(L)7,_price(D:12,4)1.5", 0);
+        try (TextorWriter writer = new TextorWriter(file, true)) {
+            assertEquals(1, writer.append(row(1)));
+            assertEquals(2, writer.append(row(2)));
+            assertEquals(4, writer.append(other));
+            assertEquals(6, writer.append(row(3)));
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(List.of("#@TABLE(A),_id(L)", "\"orders\",1", "\"orders\",2", "#@TABLE(A),_id(L),_price(D:12,4)",
+                "\"orders\",7,1.5000", "#@TABLE(A),_id(L)", "\"orders\",3"), lines);
+
+        List<Row> rows = new ArrayList<>();
+        try (TextorReader reader = new TextorReader(file)) {
+            reader.forEach(rows::add);
+        }
+        assertEquals(4, rows.size());
+        assertEquals(4, rows.get(2).getIndex());
+        assertEquals(Codec.encode(other), Codec.encode(rows.get(2)));
+        assertEquals(Codec.encode(row(3)), Codec.encode(rows.get(3)));
+    }
+}
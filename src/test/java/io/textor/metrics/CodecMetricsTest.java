@@ -0,0 +1,114 @@
+package io.textor.metrics;
+
+import io.textor.AsciiDictionary;
+import io.textor.Row;
+import io.textor.Schema;
+import io.textor.codec.Codec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodecMetricsTest {
+    private final static String line = "@TABLE(A)\"orders\",_id(L)42,_price(D:8,2)10.50,_at(T)2019-09-15T08:58:18.788860-04:00";
+
+    private MBeanServer server;
+    private JmxMetricsRegistry registry;
+
+    @BeforeEach
+    public void install() {
+        server = MBeanServerFactory.newMBeanServer();
+        registry = new JmxMetricsRegistry(server, "test");
+        CodecMetrics.install(new CodecMetrics(registry, 1));
+    }
+
+    @AfterEach
+    public void uninstall() {
+        CodecMetrics.uninstall();
+        registry.close();
+    }
+
+    private long count(String name) {
+        return registry.counter("textor.codec." + name).getCount();
+    }
+
+    @Test
+    @DisplayName("Count rows, bytes and values by type.")
+    public void counts() {
+        Row row = Codec.decode(line, 0);
+        String encoded = Codec.encode(row);
+        Schema schema = Schema.of(row);
+        String values = Codec.encode(row, schema);
+        Codec.decode(values, schema, 1);
+
+        assertEquals(2, count("decode.rows"));
+        assertEquals(2, count("encode.rows"));
+        assertEquals(line.length() + values.length(), count("decode.bytes"));
+        assertEquals(encoded.length() + values.length(), count("encode.bytes"));
+        assertEquals(2, count("decode.values.ascii"));
+        assertEquals(2, count("decode.values.timestamp"));
+        assertEquals(2, count("encode.values.integer"));
+        assertEquals(0, count("decode.values.binary"));
+
+        // Every row is sampled with an interval of 1.
+        assertEquals(2, registry.histogram("textor.codec.decode.row.nanos").getCount());
+        assertEquals(2, registry.histogram("textor.codec.decode.value.decimal.nanos").getCount());
+    }
+
+    @Test
+    @DisplayName("Count failures by kind.")
+    public void errors() {
+        Row row = Codec.decode(line, 0);
+        Schema schema = Schema.of(row);
+        assertThrows(IllegalArgumentException.class, () -> Codec.decode("_id(Q)1", 0));
+        assertThrows(IllegalArgumentException.class, () -> Codec.decode("_id(L)x1", 0));
+        String values = Codec.encode(row, schema);
+        assertThrows(IllegalArgumentException.class, () -> Codec.decode(values + ",1", schema, 0));
+        assertThrows(IllegalArgumentException.class, () -> Codec.decodeSchema("@TABLE(A)"));
+        assertThrows(IllegalArgumentException.class, () -> Codec.decodeDictionary("$1=", new AsciiDictionary()));
+        assertThrows(BufferOverflowException.class, () -> Codec.encode(row, ByteBuffer.allocate(8)));
+
+        assertEquals(1, count("errors.key"));
+        assertEquals(1, count("errors.value"));
+        assertEquals(2, count("errors.schema"));
+        assertEquals(1, count("errors.dictionary"));
+        assertEquals(1, count("errors.overflow"));
+    }
+
+    @Test
+    @DisplayName("Expose metrics as MBeans, and nothing once uninstalled.")
+    public void mbeans() throws Exception {
+        Codec.decode(line, 0);
+        assertEquals(1L, server.getAttribute(registry.objectNameOf("Counter", "textor.codec.decode.rows"), "Count"));
+        assertEquals(1L, server.getAttribute(registry.objectNameOf("Histogram", "textor.codec.decode.row.nanos"), "Count"));
+
+        CodecMetrics.uninstall();
+        Codec.decode(line, 0);
+        assertEquals(1, count("decode.rows"));
+
+        registry.close();
+        assertFalse(server.isRegistered(registry.objectNameOf("Counter", "textor.codec.decode.rows")));
+    }
+
+    @Test
+    @DisplayName("Histogram percentiles are bucket upper bounds.")
+    public void histogram() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100; ++value) {
+            histogram.record(value);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean());
+        assertEquals(63, histogram.getMedian());
+        assertEquals(100, histogram.getPercentile99());
+        assertThrowsExactly(IllegalArgumentException.class, () -> histogram.record(-1));
+    }
+}
@@ -0,0 +1,185 @@
+package io.textor.net;
+
+import io.textor.Row;
+import io.textor.codec.Codec;
+import io.textor.io.TextorReader;
+import io.textor.io.TextorWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestServerTest {
+    @TempDir
+    Path dir;
+
+    private static InetSocketAddress localhost() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    private static List<String> readReplies(BufferedReader reader, long rows) throws IOException {
+        // Replies up to the acknowledgement of rows.
+        List<String> replies = new ArrayList<>();
+        String reply;
+        while ((reply = reader.readLine()) != null) {
+            replies.add(reply);
+            if (reply.equals("+" + rows)) {
+                break;
+            }
+        }
+        return replies;
+    }
+
+    @Test
+    @DisplayName("Ingest rows split over writes, with schema headers and a bad line.")
+    public void ingest() throws IOException {
+        List<Row> rows = new CopyOnWriteArrayList<>();
+        try (IngestServer server = new IngestServer(localhost(), rows::addAll, 16);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+            OutputStream output = socket.getOutputStream();
+            BufferedReader replies = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String text = "@TABLE(A)\"events\",_id(L)0\r\n\n#@TABLE(A),_id(L)\n\"events\",1\n\"events\",x\n";
+            for (int cur = 0; cur < text.length(); cur += 7) {
+                output.write(text.substring(cur, Math.min(cur + 7, text.length())).getBytes(StandardCharsets.US_ASCII));
+                output.flush();
+            }
+            List<String> received = readReplies(replies, 2);
+            if (received.stream().noneMatch(reply -> reply.startsWith("!"))) {
+                // The bad line came in a read after the last good one.
+                received.add(replies.readLine());
+            }
+            assertTrue(received.stream().anyMatch(reply -> reply.startsWith("!4 ")), received.toString());
+
+            StringBuilder more = new StringBuilder();
+            for (int n = 2; n < 1000; ++n) {
+                more.append("\"events\",").append(n).append('\n');
+            }
+            output.write(more.toString().getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            received = readReplies(replies, 1000);
+            assertEquals("+1000", received.get(received.size() - 1));
+        }
+        assertEquals(1000, rows.size());
+        assertEquals(0, rows.get(0).getIndex());
+        assertEquals(3, rows.get(1).getIndex());
+        for (int n = 0; n < rows.size(); ++n) {
+            assertEquals(n, rows.get(n).getColumn("_id").getLong());
+        }
+    }
+
+    @Test
+    @DisplayName("Keep serving other connections while a sink blocks.")
+    public void blockingSink() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IngestSink sink = rows -> {
+            if (rows.get(0).getColumn("_id").getLong() == 0) {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try (IngestServer server = new IngestServer(localhost(), sink);
+             Socket blocked = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort());
+             Socket other = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+            blocked.setSoTimeout(10000);
+            other.setSoTimeout(10000);
+            BufferedReader blockedReplies = new BufferedReader(new InputStreamReader(blocked.getInputStream(), StandardCharsets.US_ASCII));
+            BufferedReader otherReplies = new BufferedReader(new InputStreamReader(other.getInputStream(), StandardCharsets.US_ASCII));
+            blocked.getOutputStream().write("@TABLE(A)\"events\",_id(L)0\n".getBytes(StandardCharsets.US_ASCII));
+            other.getOutputStream().write("@TABLE(A)\"events\",_id(L)1\n".getBytes(StandardCharsets.US_ASCII));
+            assertEquals("+1", otherReplies.readLine());
+            assertFalse(blockedReplies.ready());
+            release.countDown();
+            assertEquals("+1", blockedReplies.readLine());
+        }
+        finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Write pending replies to a producer that closed its side, then close.")
+    public void producerEnds() throws IOException {
+        List<Row> rows = new CopyOnWriteArrayList<>();
+        try (IngestServer server = new IngestServer(localhost(), rows::addAll);
+             Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+            socket.setSoTimeout(10000);
+            socket.getOutputStream().write("@TABLE(A)\"events\",_id(L)0\n_id(L)x\n".getBytes(StandardCharsets.US_ASCII));
+            socket.shutdownOutput();
+            BufferedReader replies = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            List<String> received = new ArrayList<>();
+            String reply;
+            while ((reply = replies.readLine()) != null) {
+                received.add(reply);
+            }
+            assertEquals(2, received.size(), received.toString());
+            assertTrue(received.get(0).startsWith("!1 "), received.toString());
+            assertEquals("+1", received.get(1));
+        }
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    @DisplayName("Ingest rows from many connections into a file.")
+    public void ingestToFile() throws Exception {
+        Path file = dir.resolve("ingest.textor");
+        int connections = 4, count = 250;
+        try (TextorWriter writer = new TextorWriter(file);
+             IngestServer server = new IngestServer(localhost(), IngestSink.of(writer))) {
+            List<Thread> producers = new ArrayList<>();
+            List<Throwable> failures = new CopyOnWriteArrayList<>();
+            for (int c = 0; c < connections; ++c) {
+                int base = c * count;
+                Thread producer = new Thread(() -> {
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getAddress().getPort())) {
+                        StringBuilder text = new StringBuilder();
+                        for (int n = 0; n < count; ++n) {
+                            text.append(Codec.encode(Codec.decode("@TABLE(A)\"events\",_id(L)" + (base + n), 0))).append('\n');
+                        }
+                        socket.getOutputStream().write(text.toString().getBytes(StandardCharsets.US_ASCII));
+                        BufferedReader replies = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                        List<String> received = readReplies(replies, count);
+                        assertEquals("+" + count, received.get(received.size() - 1));
+                    }
+                    catch (Throwable throwable) {
+                        failures.add(throwable);
+                    }
+                });
+                producer.start();
+                producers.add(producer);
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            assertEquals(List.of(), failures);
+        }
+
+        long sum = 0, rows = 0;
+        try (TextorReader reader = new TextorReader(file)) {
+            for (Row row : reader) {
+                sum += row.getColumn("_id").getLong();
+                ++rows;
+            }
+        }
+        assertEquals(connections * count, rows);
+        assertEquals((long)connections * count * (connections * count - 1) / 2, sum);
+    }
+}